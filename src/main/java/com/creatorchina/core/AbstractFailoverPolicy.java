@@ -32,6 +32,7 @@ import net.jodah.failsafe.RetryPolicy;
 import net.jodah.failsafe.function.CheckedSupplier;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -44,10 +45,13 @@ import java.util.logging.Logger;
 public abstract class AbstractFailoverPolicy<S, R, U> implements Collect<List<Policy<R>>, Policy<R>> {
 
     Logger logger = Logger.getGlobal();
+    private static final PipelineDiagnostics.RateLimitedLog EXECS = PipelineDiagnostics.rateLimited(Logger.getGlobal(),
+            Level.FINE, "Current is {0} method exec, {1} similar records suppressed");
     protected List<Policy<R>> policyCollects = new ArrayList<>();
     protected RetryPolicy retryPolicy;
     protected SafeFailback safeFailback;
     protected MinaFallback minaFallback;
+    protected Hedging hedging;
 
     abstract List<Policy<R>> doCollect(Policy<R>... t);
 
@@ -58,11 +62,11 @@ public abstract class AbstractFailoverPolicy<S, R, U> implements Collect<List<Po
      */
     CompletableFuture<S> registerFailoverHandler$(CheckedSupplier<U> method, boolean isAsync)  {
         if (isAsync){
-            logger.log(Level.INFO,"Current is async method exec ......~");
+            EXECS.log("async");
             return this.registerFailoverHandlerMethodAsync(method);
         }else {
             try {
-                logger.log(Level.INFO,"Current is sync method exec ......~");
+                EXECS.log("sync");
                 return  this.registerFailoverHandlerMethodSync(method);
             } catch (Exception e) {
                 //ignore
@@ -93,7 +97,11 @@ public abstract class AbstractFailoverPolicy<S, R, U> implements Collect<List<Po
      */
     protected CompletableFuture<S> registerFailoverHandlerMethodAsync(
             @NotNull CheckedSupplier<U> method) {
-        return this.safeFailback.doRenderAsync(method, policyCollects.toArray(new Policy[policyCollects.size()]));
+        SafeFailback failback = renderFailback();
+        if (hedging != null) {
+            return failback.doRenderStageAsync(() -> hedging.race(method, failback.executor()), renderPolicies());
+        }
+        return failback.doRenderAsync(method, renderPolicies());
     }
 
 
@@ -103,8 +111,75 @@ public abstract class AbstractFailoverPolicy<S, R, U> implements Collect<List<Po
      */
     protected CompletableFuture<S> registerFailoverHandlerMethodSync(
             @NotNull CheckedSupplier<U> method) throws Exception {
-        return this.safeFailback.doRenderSync(method, policyCollects.toArray(new Policy[policyCollects.size()]));
+        if (isIsolated()) {
+            return CompletableFuture.completedFuture(FailoverPlan.join(registerFailoverHandlerMethodAsync(method)));
+        }
+        return renderFailback().doRenderSync(hedged(method), renderPolicies());
+    }
+
+
+    /**
+     * @param method
+     * @return the result of the method, or of the fallback
+     */
+    @SuppressWarnings("unchecked")
+    protected S registerFailoverHandlerMethod(
+            @NotNull CheckedSupplier<U> method) {
+        if (isIsolated()) {
+            return FailoverPlan.join(registerFailoverHandlerMethodAsync(method));
+        }
+        return (S) renderFailback().doRender(hedged(method), renderPolicies());
     }
 
 
+    /**
+     * @param method returns the stage of one attempt
+     * @return
+     */
+    protected CompletableFuture<S> registerFailoverStageHandler(
+            @NotNull CheckedSupplier<? extends CompletionStage<U>> method) {
+        SafeFailback failback = renderFailback();
+        if (hedging != null) {
+            return failback.doRenderStageAsync(() -> hedging.raceStage(method, failback.executor()), renderPolicies());
+        }
+        return failback.doRenderStageAsync(method, renderPolicies());
+    }
+
+
+    /**
+     * The policies every call runs through, outermost first
+     */
+    protected Policy[] renderPolicies() {
+        return policyCollects.toArray(new Policy[policyCollects.size()]);
+    }
+
+
+    /**
+     * Whether a thread pool {@link Bulkhead} is collected, its threads have to run the attempts
+     * of the synchronous calls as well, the caller only waits
+     */
+    protected boolean isIsolated() {
+        for (Policy<R> policy : policyCollects) {
+            if (policy instanceof Bulkhead && ((Bulkhead) policy).getIsolation() == Bulkhead.Isolation.THREAD_POOL) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * The failback every call runs on
+     */
+    protected SafeFailback renderFailback() {
+        return safeFailback;
+    }
+
+
+    /**
+     * Races every attempt against a hedge when hedging is configured
+     */
+    private CheckedSupplier<U> hedged(CheckedSupplier<U> method) {
+        return hedging == null ? method : hedging.blocking(method, safeFailback.executor());
+    }
 }
@@ -0,0 +1,161 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.FailsafeFuture;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.Timeout;
+import net.jodah.failsafe.internal.util.Assert;
+import net.jodah.failsafe.util.concurrent.Scheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <BR>A per-attempt timeout that follows the latency of the dependency.<BR/>
+ * <P>The deadline of every call is {@code percentile} of the dependency's {@link LatencyHistogram}
+ * times {@code factor}, clamped to {@code [min, max]}. Until {@link Constants#ADAPTIVE_TIMEOUT_MIN_SAMPLES}
+ * attempts have been recorded the deadline is {@code max}. A fixed timeout is either too tight and turns
+ * a slow minute into a retry storm, or too loose and lets the threads pile up; the adaptive one stays
+ * just above the tail the dependency actually has.<P/>
+ * <P>The deadline is recomputed at most every {@link Constants#LATENCY_QUANTILE_REFRESH_MILLIS}, and its
+ * {@link Timeout}, which cancels and interrupts the attempt, is reused until the deadline moves. The latency of every attempt is recorded by {@link #recorder()}, which has to run inside the
+ * timeout so that attempts cut by it are still measured when they return<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class AdaptiveTimeout<R> implements Policy<R> {
+
+    private final LatencyHistogram histogram;
+
+    private final double factor;
+
+    private final Policy<R> recorder = newRecorder();
+
+    private final LatencyHistogram.Quantile quantile;
+
+    private final long minNanos;
+
+    private final long maxNanos;
+
+    /**
+     * The timeout of the current deadline, replaced only when the deadline moves
+     */
+    private volatile Timeout<R> timeout;
+
+    public AdaptiveTimeout(LatencyHistogram histogram, double percentile, double factor, Duration min, Duration max) {
+        Assert.notNull(histogram, "Histogram is non null");
+        Assert.isTrue(percentile > 0 && percentile <= 100, "Percentile must between 0 and 100 ~");
+        Assert.isTrue(factor >= 1, "Factor must >= 1 ~");
+        Assert.notNull(min, "Min timeout is non null");
+        Assert.notNull(max, "Max timeout is non null");
+        Assert.isTrue(!min.isNegative() && !min.isZero(), "Min timeout must > 0 ~");
+        Assert.isTrue(max.compareTo(min) >= 0, "Max timeout must >= min timeout ~");
+        this.histogram = histogram;
+        this.factor = factor;
+        this.quantile = histogram.quantile(percentile, Constants.ADAPTIVE_TIMEOUT_MIN_SAMPLES);
+        this.minNanos = min.toNanos();
+        this.maxNanos = max.toNanos();
+        this.timeout = Timeout.<R>of(max).withCancel(true);
+    }
+
+    /**
+     * The deadline a call started now would get
+     */
+    public Duration currentTimeout() {
+        return Duration.ofNanos(deadlineNanos());
+    }
+
+    /**
+     * The deadline from the cached percentile, see {@link LatencyHistogram#quantile(double, long)}
+     */
+    private long deadlineNanos() {
+        long value = quantile.nanos();
+        if (value < 0) {
+            return maxNanos;
+        }
+        long nanos = (long) Math.min(Long.MAX_VALUE, value * factor);
+        return Math.max(minNanos, Math.min(maxNanos, nanos));
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * <BR>The policy recording the latency of every attempt into the histogram<BR/>
+     */
+    public Policy<R> recorder() {
+        return recorder;
+    }
+
+    private Policy<R> newRecorder() {
+        return new Policy<R>() {
+            @Override
+            public PolicyExecutor toExecutor(AbstractExecution execution) {
+                return new PolicyExecutor<Policy<R>>(this, execution) {
+
+                    private long startNanos;
+
+                    @Override
+                    protected ExecutionResult preExecute() {
+                        startNanos = System.nanoTime();
+                        return null;
+                    }
+
+                    @Override
+                    protected ExecutionResult postExecute(ExecutionResult result) {
+                        histogram.record(System.nanoTime() - startNanos);
+                        return super.postExecute(result);
+                    }
+
+                    @Override
+                    protected CompletableFuture<ExecutionResult> postExecuteAsync(ExecutionResult result, Scheduler scheduler,
+                                                                                  FailsafeFuture<Object> future) {
+                        histogram.record(System.nanoTime() - startNanos);
+                        return super.postExecuteAsync(result, scheduler, future);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public PolicyExecutor toExecutor(AbstractExecution execution) {
+        long nanos = deadlineNanos();
+        Timeout<R> current = timeout;
+        if (current.getTimeout().toNanos() != nanos) {
+            current = Timeout.<R>of(Duration.ofNanos(nanos)).withCancel(true);
+            timeout = current;
+        }
+        return current.toExecutor(execution);
+    }
+}
@@ -0,0 +1,275 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * <BR>A log handler that never blocks the logging thread.<BR/>
+ * <P>{@link #publish(LogRecord)} only claims a slot of a bounded ring with one CAS, there is no lock and no
+ * I/O on the calling thread. A daemon thread drains the ring in batches, hands every record to the target
+ * handlers, which format it, and flushes them once per batch. When the ring is full the record is dropped
+ * and counted, and the count is reported to the targets with the next batch.<P/>
+ * <P>Records are formatted on the background thread: the caller of a record is not inferred, formatters
+ * that print it show the logger name instead<P/>
+ * <pre>
+ * AsyncLogHandler handler = AsyncLogHandler.install(Logger.getGlobal(), 8192);
+ * </pre>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class AsyncLogHandler extends Handler {
+
+    private final Handler[] targets;
+
+    private final int mask;
+
+    private final AtomicReferenceArray<LogRecord> records;
+
+    /**
+     * Per slot, the position it can be written at, or that position plus one once written
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final long idleNanos;
+
+    private final Thread drainer;
+
+    private volatile long head;
+
+    private long reported;
+
+    private volatile boolean closed;
+
+    private Logger installedOn;
+
+    private Handler[] replaced;
+
+    private boolean usedParentHandlers;
+
+    /**
+     * @param targets  handlers that format and write the records, on the background thread
+     * @param capacity records the ring holds, rounded up to a power of two
+     */
+    public AsyncLogHandler(Handler[] targets, int capacity) {
+        Assert.notNull(targets, "Target handlers are non null");
+        Assert.isTrue(capacity > 0, "Capacity of the log ring must be positive");
+        this.targets = targets.clone();
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.records = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(Constants.ASYNC_LOG_FLUSH_MILLIS);
+        setLevel(Level.ALL);
+        this.drainer = new Thread(this::drainLoop, "failover-async-log");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * <BR>Route the records of {@code logger} through a new handler. The handlers the records reached
+     * so far, its own and those of its parents, become the targets<BR/>
+     *
+     * @param logger   logger to make asynchronous
+     * @param capacity records the ring holds, 0 for {@link Constants#ASYNC_LOG_CAPACITY}
+     * @return the installed handler, {@link #uninstall()} restores the logger
+     */
+    public static AsyncLogHandler install(Logger logger, int capacity) {
+        Assert.notNull(logger, "Logger is non null");
+        List<Handler> targets = new ArrayList<>();
+        for (Logger current = logger; current != null; current = current.getParent()) {
+            Collections.addAll(targets, current.getHandlers());
+            if (!current.getUseParentHandlers()) {
+                break;
+            }
+        }
+        AsyncLogHandler handler = new AsyncLogHandler(targets.toArray(new Handler[0]),
+                capacity > 0 ? capacity : Constants.ASYNC_LOG_CAPACITY);
+        synchronized (handler) {
+            handler.installedOn = logger;
+            handler.replaced = logger.getHandlers();
+            handler.usedParentHandlers = logger.getUseParentHandlers();
+            for (Handler replaced : handler.replaced) {
+                logger.removeHandler(replaced);
+            }
+            logger.setUseParentHandlers(false);
+            logger.addHandler(handler);
+        }
+        return handler;
+    }
+
+    /**
+     * Close the handler and give the logger it was installed on its handlers back
+     */
+    public synchronized void uninstall() {
+        close();
+        if (installedOn == null) {
+            return;
+        }
+        installedOn.removeHandler(this);
+        for (Handler handler : replaced) {
+            installedOn.addHandler(handler);
+        }
+        installedOn.setUseParentHandlers(usedParentHandlers);
+        installedOn = null;
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        for (;;) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence < position) {
+                dropped.increment();
+                return;
+            }
+            if (sequence == position && tail.compareAndSet(position, position + 1)) {
+                records.lazySet(index, record);
+                sequences.set(index, position + 1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wake the background thread, the records are written as soon as it runs
+     */
+    @Override
+    public void flush() {
+        LockSupport.unpark(drainer);
+    }
+
+    /**
+     * Stop taking records, write the pending ones and flush the targets. The targets stay open
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records dropped because the ring was full
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Records waiting in the ring
+     */
+    public long getPending() {
+        return Math.max(0, tail.get() - head);
+    }
+
+    private void drainLoop() {
+        while (!closed) {
+            if (drain() == 0) {
+                LockSupport.parkNanos(this, idleNanos);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * Write the records published so far and flush the targets once
+     */
+    private int drain() {
+        int drained = 0;
+        for (;;) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            LogRecord record = records.get(index);
+            records.lazySet(index, null);
+            sequences.set(index, head + mask + 1);
+            head++;
+            drained++;
+            write(record);
+        }
+        long total = dropped.sum();
+        if (total > reported) {
+            LogRecord record = new LogRecord(Level.WARNING, "{0} log records dropped, the async log ring is full");
+            record.setParameters(new Object[]{total - reported});
+            reported = total;
+            write(record);
+            drained++;
+        }
+        if (drained > 0) {
+            for (Handler target : targets) {
+                target.flush();
+            }
+        }
+        return drained;
+    }
+
+    private void write(LogRecord record) {
+        for (Handler target : targets) {
+            try {
+                target.publish(record);
+            } catch (RuntimeException e) {
+                reportError("Failed to write a log record", e, ErrorManager.WRITE_FAILURE);
+            }
+        }
+    }
+}
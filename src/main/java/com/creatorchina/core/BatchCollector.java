@@ -0,0 +1,179 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * <BR>Collects single-key calls into bulk calls, like a DataLoader.<BR/>
+ * <P>{@link #load(Object)} buffers the key and returns a future. The buffer is dispatched as one
+ * {@link FailoverPlan#getBatchAsync(List, Function)} call as soon as it holds {@code maxBatchSize} keys
+ * or {@code maxDelay} after its first key, whichever comes first, and every future is completed with
+ * the value of its key. The same key loaded twice in one window is only sent once. Retries, fallback
+ * and the other policies of the plan apply to the bulk call, and only the failed keys are retried.<P/>
+ * <pre>
+ * BatchCollector&lt;Long, User&gt; users = new BatchCollector&lt;&gt;(plan, ids -&gt; userService.findByIds(ids));
+ *
+ * CompletableFuture&lt;User&gt; user = users.load(42L);
+ * </pre>
+ * <P>The window timer lives on the shared {@link HashedWheelTimer}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class BatchCollector<K, V> {
+
+    private final FailoverPlan<?, ?> plan;
+
+    private final Function<List<K>, Map<K, V>> bulkCall;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private Batch current;
+
+    public BatchCollector(FailoverPlan<?, ?> plan, Function<List<K>, Map<K, V>> bulkCall) {
+        this(plan, bulkCall, Constants.BATCH_MAX_SIZE, Duration.ofMillis(Constants.BATCH_MAX_DELAY_MILLIS));
+    }
+
+    /**
+     * @param plan         the pipeline every bulk call runs through
+     * @param bulkCall     looks up a list of keys
+     * @param maxBatchSize keys per bulk call at most
+     * @param maxDelay     how long the first key of a batch may wait for others
+     */
+    public BatchCollector(FailoverPlan<?, ?> plan, Function<List<K>, Map<K, V>> bulkCall,
+                          int maxBatchSize, Duration maxDelay) {
+        Assert.notNull(plan, "Plan is non null");
+        Assert.notNull(bulkCall, "Bulk call is non null");
+        Assert.isTrue(maxBatchSize > 0, "Max batch size must > 0 ~");
+        Assert.notNull(maxDelay, "Max delay is non null");
+        Assert.isTrue(!maxDelay.isNegative(), "Max delay must >= 0 ~");
+        this.plan = plan;
+        this.bulkCall = bulkCall;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    /**
+     * <BR>Load one key with the next bulk call<BR/>
+     *
+     * @param key the key to look up
+     * @return completes with the value of the key, or of the fallback. Callers of a key that is already
+     * in the batch share its bulk call, not the future, so cancelling one leaves the others alone
+     */
+    public CompletableFuture<V> load(K key) {
+        Assert.notNull(key, "Key is non null");
+        Batch full = null;
+        CompletableFuture<V> future;
+        synchronized (this) {
+            if (current == null) {
+                Batch batch = new Batch();
+                // Scheduled before it becomes current, a rejected timer leaves no batch behind
+                batch.timer = HashedWheelTimer.shared().schedule(() -> {
+                    dispatchExpired(batch);
+                    return null;
+                }, maxDelayNanos, TimeUnit.NANOSECONDS, plan.executorService());
+                current = batch;
+            }
+            future = current.futures.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (current.futures.size() >= maxBatchSize) {
+                full = current;
+                current = null;
+            }
+        }
+        if (full != null) {
+            full.timer.cancel(false);
+            dispatch(full);
+        }
+        return future.thenApply(Function.identity());
+    }
+
+    /**
+     * Dispatch the keys buffered so far without waiting for the window to end
+     */
+    public void flush() {
+        Batch batch;
+        synchronized (this) {
+            batch = current;
+            current = null;
+        }
+        if (batch != null) {
+            batch.timer.cancel(false);
+            dispatch(batch);
+        }
+    }
+
+    private void dispatchExpired(Batch batch) {
+        synchronized (this) {
+            if (current != batch) {
+                // Already dispatched because it was full, or flushed
+                return;
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Batch batch) {
+        Map<K, CompletableFuture<V>> futures = batch.futures;
+        CompletableFuture<Map<K, V>> bulk;
+        try {
+            bulk = plan.getBatchAsync(new ArrayList<>(futures.keySet()), bulkCall);
+        } catch (Throwable t) {
+            bulk = new CompletableFuture<>();
+            bulk.completeExceptionally(t);
+        }
+        bulk.whenComplete((values, failure) -> {
+            for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+                if (failure != null) {
+                    entry.getValue().completeExceptionally(failure);
+                } else {
+                    entry.getValue().complete(values.get(entry.getKey()));
+                }
+            }
+        });
+    }
+
+    private final class Batch {
+
+        private final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+
+        private volatile ScheduledFuture<Object> timer;
+    }
+}
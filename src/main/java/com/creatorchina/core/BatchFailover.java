@@ -0,0 +1,155 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.FailsafeException;
+import net.jodah.failsafe.Fallback;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <BR>One batch call whose retries only resend the keys that are still missing.<BR/>
+ * <P>Every attempt passes the pending keys to the bulk call, keeps the values it got back and
+ * fails with {@link FailoverBatchException} for the rest, so each retry batch is smaller than the
+ * previous one. A bulk call that throws fails all its keys. When the retries are exhausted the
+ * fallback is applied to every key that never succeeded: the last good value of the key for
+ * {@link MinaFallback#ofLastKnownGood}, else the fallback function with a
+ * {@link FailoverBatchException} of just that key.<P/>
+ * <P>A timed out attempt keeps running while the next one starts, so an attempt merges its values
+ * and the keys still pending under the lock of the batch, and the result is a copy no late
+ * attempt changes any more<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+final class BatchFailover<K, V> {
+
+    private static final Logger logger = Logger.getGlobal();
+
+    private final Function<List<K>, Map<K, V>> bulkCall;
+
+    /**
+     * Guarded by this, as {@link #pending}
+     */
+    private final Map<K, V> results = new LinkedHashMap<>();
+
+    private List<K> pending;
+
+    BatchFailover(List<K> keys, Function<List<K>, Map<K, V>> bulkCall) {
+        Assert.notNull(keys, "Keys of the batch is non null");
+        Assert.notNull(bulkCall, "Bulk call is non null");
+        this.bulkCall = bulkCall;
+        this.pending = new ArrayList<>(new LinkedHashSet<>(keys));
+    }
+
+    /**
+     * One attempt with the keys still pending
+     */
+    Map<K, V> attempt() {
+        List<K> batch;
+        synchronized (this) {
+            batch = pending;
+            if (batch.isEmpty()) {
+                return new LinkedHashMap<>(results);
+            }
+        }
+        Map<K, V> values = bulkCall.apply(Collections.unmodifiableList(batch));
+        List<K> missing = new ArrayList<>();
+        synchronized (this) {
+            // Another attempt may have got some of the keys meanwhile
+            for (K key : pending) {
+                V value = values == null ? null : values.get(key);
+                if (value == null) {
+                    missing.add(key);
+                } else {
+                    results.put(key, value);
+                }
+            }
+            pending = missing;
+            if (missing.isEmpty()) {
+                return new LinkedHashMap<>(results);
+            }
+        }
+        throw new FailoverBatchException(missing);
+    }
+
+    /**
+     * <BR>Apply the fallback to the keys that never succeeded and record the good values<BR/>
+     *
+     * @param failure       the failure the retries ended with, or null
+     * @param fallback      the fallback of the pipeline, or null
+     * @param lastKnownGood the cache of the fallback, or null
+     * @return a value, possibly null, for every key
+     */
+    @SuppressWarnings("unchecked")
+    Map<K, V> complete(Throwable failure, Fallback fallback, LastKnownGood lastKnownGood) {
+        Map<K, V> completed;
+        List<K> missing;
+        synchronized (this) {
+            completed = new LinkedHashMap<>(results);
+            missing = pending;
+        }
+        if (lastKnownGood != null) {
+            for (Map.Entry<K, V> entry : completed.entrySet()) {
+                lastKnownGood.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (failure == null) {
+            return completed;
+        }
+        Throwable cause = failure;
+        while ((cause instanceof FailsafeException || cause instanceof CompletionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        for (K key : missing) {
+            V value = lastKnownGood == null ? null : (V) lastKnownGood.get(key);
+            if (value == null && fallback != null) {
+                FailoverBatchException keyFailure = new FailoverBatchException(Collections.singletonList(key), cause);
+                try {
+                    value = (V) Failsafe.with(fallback).get(() -> {
+                        throw keyFailure;
+                    });
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Fallback of batch key failed: " + key, e);
+                    value = null;
+                }
+            }
+            completed.put(key, value);
+        }
+        return completed;
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.NotNull;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+
+/**
+ * <BR>Configuration of a {@link SlidingWindowBreaker}.<BR/>
+ * <P>The window is either the last {@code size} calls, or the calls of the last {@code size} seconds.
+ * The breaker opens once the window holds at least {@code minimumCalls} calls, at most the whole of a count
+ * based window, and the failure rate
+ * reaches the threshold, stays open for {@code openDuration}, then lets {@code halfOpenCalls} trial
+ * calls through: all of them succeeding closes it, any failure opens it again.<P/>
+ * <P>A call taking {@code slowCallThreshold} or longer is slow, and the breaker also opens when the rate of
+ * slow calls in the window reaches {@code slowCallRateThreshold}, whether they succeeded or not. A dependency
+ * that goes slow ties up the callers' threads long before it starts failing. A slow trial call
+ * opens a half open breaker again.<P/>
+ * <pre>
+ * BreakerConfig config = BreakerConfig.timeBased(30)
+ *         .withFailureRateThreshold(40)
+ *         .withOpenDuration(Duration.ofSeconds(10))
+ *         .withSlowCallThreshold(Duration.ofMillis(800))
+ *         .withSlowCallRateThreshold(50);
+ * </pre>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class BreakerConfig {
+
+    public enum WindowType {
+        COUNT_BASED, TIME_BASED
+    }
+
+    private final WindowType windowType;
+
+    private final int windowSize;
+
+    private int failureRateThreshold = Constants.BREAKER_FAILURE_RATE;
+
+    private int minimumCalls = Constants.BREAKER_MINIMUM_CALLS;
+
+    private Duration openDuration = Duration.of(Constants.CIRCUIT_BREAKER_DURTION, Constants.CHRONOUNIT_MINUTES);
+
+    private int halfOpenCalls = Constants.SUCCESS_THRESHOLD;
+
+    private int slowCallRateThreshold = Constants.BREAKER_SLOW_CALL_RATE;
+
+    private Duration slowCallThreshold = Duration.of(Constants.BREAKER_SLOW_CALL_MILLIS, Constants.CHRONOUNIT_MILLIS);
+
+    private BreakerConfig(WindowType windowType, int windowSize) {
+        Assert.isTrue(windowSize > 0, "Window size must > 0 ~");
+        this.windowType = windowType;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Window of the last {@link Constants#BREAKER_WINDOW_SIZE} calls
+     */
+    public static BreakerConfig ofDefaults() {
+        return countBased(Constants.BREAKER_WINDOW_SIZE);
+    }
+
+    /**
+     * @param calls the window holds the outcome of the last {@code calls} calls
+     */
+    public static BreakerConfig countBased(int calls) {
+        return new BreakerConfig(WindowType.COUNT_BASED, calls);
+    }
+
+    /**
+     * @param seconds the window holds the calls of the last {@code seconds} seconds
+     */
+    public static BreakerConfig timeBased(int seconds) {
+        return new BreakerConfig(WindowType.TIME_BASED, seconds);
+    }
+
+    /**
+     * @param percent failure rate of the window at which the breaker opens
+     */
+    public BreakerConfig withFailureRateThreshold(int percent) {
+        Assert.isTrue(percent > 0 && percent <= 100, "Failure rate must between 1 and 100 ~");
+        this.failureRateThreshold = percent;
+        return this;
+    }
+
+    /**
+     * @param minimumCalls calls the window needs before a rate is computed, a count based window
+     *                     holds no more than its size
+     */
+    public BreakerConfig withMinimumCalls(int minimumCalls) {
+        Assert.isTrue(minimumCalls > 0, "Minimum calls must > 0 ~");
+        Assert.isTrue(windowType != WindowType.COUNT_BASED || minimumCalls <= windowSize,
+                "Minimum calls must <= the size of a count based window, else the breaker never opens ~");
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+
+    /**
+     * @param openDuration how long the breaker stays open before trial calls are allowed
+     */
+    public BreakerConfig withOpenDuration(@NotNull Duration openDuration) {
+        Assert.notNull(openDuration, "Open duration is non null");
+        Assert.isTrue(!openDuration.isNegative(), "Open duration must >= 0 ~");
+        this.openDuration = openDuration;
+        return this;
+    }
+
+    /**
+     * @param halfOpenCalls trial calls that all have to succeed to close the breaker
+     */
+    public BreakerConfig withHalfOpenCalls(int halfOpenCalls) {
+        Assert.isTrue(halfOpenCalls > 0, "Half open calls must > 0 ~");
+        this.halfOpenCalls = halfOpenCalls;
+        return this;
+    }
+
+    /**
+     * @param percent slow call rate of the window at which the breaker opens
+     */
+    public BreakerConfig withSlowCallRateThreshold(int percent) {
+        Assert.isTrue(percent > 0 && percent <= 100, "Slow call rate must between 1 and 100 ~");
+        this.slowCallRateThreshold = percent;
+        return this;
+    }
+
+    /**
+     * @param slowCallThreshold calls taking this long or longer are slow
+     */
+    public BreakerConfig withSlowCallThreshold(@NotNull Duration slowCallThreshold) {
+        Assert.notNull(slowCallThreshold, "Slow call threshold is non null");
+        Assert.isTrue(!slowCallThreshold.isNegative() && !slowCallThreshold.isZero(), "Slow call threshold must > 0 ~");
+        this.slowCallThreshold = slowCallThreshold;
+        return this;
+    }
+
+    public WindowType getWindowType() {
+        return windowType;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * The default minimum is cut down to the size of a smaller count based window
+     */
+    public int getMinimumCalls() {
+        return windowType == WindowType.COUNT_BASED ? Math.min(minimumCalls, windowSize) : minimumCalls;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public Duration getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+}
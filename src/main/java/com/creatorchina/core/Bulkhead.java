@@ -0,0 +1,274 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.AsyncExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.FailsafeFuture;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.internal.util.Assert;
+import net.jodah.failsafe.util.concurrent.Scheduler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>Isolates one dependency from the others, so that it can only hold its own share of the threads.<BR/>
+ * <P>At most {@code maxConcurrent} attempts of the dependency run at once and at most {@code maxQueue} more
+ * wait for their turn. Any attempt over that is rejected with {@link FailoverRejectedException} on the
+ * calling thread before it is queued, the retry policy aborts and the call goes straight to the fallback.
+ * <ul>
+ *     <li>{@link Isolation#THREAD_POOL} runs the attempts on threads of the bulkhead, a slow dependency
+ *     blocks its own {@code maxConcurrent} threads and none of the shared pool</li>
+ *     <li>{@link Isolation#SEMAPHORE} runs them where they would run anyway and only counts them, the queued
+ *     attempts wait up to {@link Constants#BULKHEAD_MAX_WAIT_MILLIS} for a permit. An asynchronous attempt
+ *     may be checked on the thread that submits the call, so it never waits: without a free permit it is
+ *     rejected</li>
+ * </ul>
+ * Bulkheads are shared per dependency name and exposed as MBeans, see {@link FailoverRegistry#bulkhead}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class Bulkhead<R> implements Policy<R>, BulkheadMBean {
+
+    public enum Isolation {
+        THREAD_POOL, SEMAPHORE
+    }
+
+    private final String name;
+
+    private final Isolation isolation;
+
+    private final int maxConcurrent;
+
+    private final int maxQueue;
+
+    /**
+     * Attempts running or waiting, never more than {@code maxConcurrent + maxQueue}
+     */
+    private final AtomicInteger admitted = new AtomicInteger();
+
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final ThreadPoolExecutor pool;
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final FailoverRejectedException rejection;
+
+    public Bulkhead(String name, Isolation isolation, int maxConcurrent, int maxQueue) {
+        Utils.hasText(name, "Name for bulkhead needs to be set");
+        Assert.notNull(isolation, "Isolation is non null");
+        Assert.isTrue(maxConcurrent > 0, "MaxConcurrent must > 0 ~");
+        Assert.isTrue(maxQueue >= 0, "MaxQueue must >= 0 ~");
+        this.name = name;
+        this.isolation = isolation;
+        this.maxConcurrent = maxConcurrent;
+        this.maxQueue = maxQueue;
+        this.rejection = new FailoverRejectedException("Bulkhead " + name + " is full", false);
+        if (isolation == Isolation.THREAD_POOL) {
+            AtomicInteger threads = new AtomicInteger();
+            // The admission count bounds the queue, the pool itself never rejects
+            this.pool = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, Constants.BULKHEAD_KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "failover-bulkhead-" + name + "-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.pool.allowCoreThreadTimeOut(true);
+            this.permits = null;
+        } else {
+            this.pool = null;
+            this.permits = new Semaphore(maxConcurrent);
+        }
+    }
+
+    /**
+     * <BR>Admit one attempt, waiting for a permit when the attempt is queued on a semaphore bulkhead<BR/>
+     *
+     * @return false if the bulkhead is full
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(true);
+    }
+
+    /**
+     * @param wait whether a queued attempt on a semaphore bulkhead waits for a permit
+     * @return false if the bulkhead is full
+     */
+    public boolean tryAcquire(boolean wait) {
+        for (;;) {
+            int current = admitted.get();
+            if (current >= maxConcurrent + maxQueue) {
+                rejected.increment();
+                return false;
+            }
+            if (admitted.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        if (permits == null || permits.tryAcquire()) {
+            return true;
+        }
+        if (!wait) {
+            admitted.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        waiting.incrementAndGet();
+        try {
+            if (permits.tryAcquire(Constants.BULKHEAD_MAX_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            waiting.decrementAndGet();
+        }
+        admitted.decrementAndGet();
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Give back what {@link #tryAcquire()} took once the attempt completed
+     */
+    public void release() {
+        if (permits != null) {
+            permits.release();
+        }
+        admitted.decrementAndGet();
+        completed.increment();
+    }
+
+    /**
+     * The threads of a {@link Isolation#THREAD_POOL} bulkhead, null for a semaphore
+     */
+    public ExecutorService executor() {
+        return pool;
+    }
+
+    /**
+     * Stop the threads of the bulkhead, attempts already queued still run
+     */
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public Isolation getIsolation() {
+        return isolation;
+    }
+
+    @Override
+    public String getIsolationName() {
+        return isolation.name();
+    }
+
+    @Override
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    @Override
+    public int getMaxQueue() {
+        return maxQueue;
+    }
+
+    /**
+     * Attempts running right now
+     */
+    @Override
+    public int getActive() {
+        return pool != null ? pool.getActiveCount() : maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * Attempts admitted and waiting for a thread or a permit
+     */
+    @Override
+    public int getQueued() {
+        return pool != null ? pool.getQueue().size() : waiting.get();
+    }
+
+    @Override
+    public long getCompleted() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public PolicyExecutor toExecutor(AbstractExecution execution) {
+        return new PolicyExecutor<Policy<R>>(this, execution) {
+
+            @Override
+            protected ExecutionResult preExecute() {
+                if (!tryAcquire(!(execution instanceof AsyncExecution))) {
+                    return ExecutionResult.failure(rejection);
+                }
+                return null;
+            }
+
+            @Override
+            protected ExecutionResult postExecute(ExecutionResult result) {
+                release();
+                return super.postExecute(result);
+            }
+
+            @Override
+            protected CompletableFuture<ExecutionResult> postExecuteAsync(ExecutionResult result, Scheduler scheduler,
+                                                                          FailsafeFuture<Object> future) {
+                release();
+                return super.postExecuteAsync(result, scheduler, future);
+            }
+        };
+    }
+}
@@ -25,11 +25,18 @@
 
 package com.creatorchina.core;
 
+import com.creatorchina.preview.Constants;
 import com.creatorchina.util.Utils;
 import net.jodah.failsafe.CircuitBreaker;
+import net.jodah.failsafe.Policy;
 import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * @author jack
@@ -47,14 +54,26 @@ public class CircuitBreakerRegistry {
 
     private static final String ALREADY_REGISTERED_ERROR = "There was a Circuit-Breaker registered already with name : %s ";
 
+    public static CircuitBreakerRegistry instance = new CircuitBreakerRegistry();
+
     private final Map<String, CircuitBreaker> concurrentBreakerMap = new ConcurrentHashMap<>();
 
+    private final Map<String, SlidingWindowBreaker> concurrentWindowBreakerMap = new ConcurrentHashMap<>();
+
+    private final Map<String, Consumer<SlidingWindowBreaker>> pendingWindowBreakerRestores = new ConcurrentHashMap<>();
+
+    private final Map<String, CompactBreakerStore> concurrentCompactStoreMap = new ConcurrentHashMap<>();
+
+    private final Map<String, SharedWindowBreaker> concurrentSharedBreakerMap = new ConcurrentHashMap<>();
+
+    private volatile SharedBreakerRegion sharedRegion;
+
     void registerCircuitBreaker(final CircuitBreaker breaker, final String name) {
         Utils.hasText(name, "Name for circuit breaker needs to be set");
-        Utils.notNull(breaker, "Circuit breaker to add, can't be null");
+        Utils.notNull(breaker, "Circuit breaker to add");
 
-        final CircuitBreaker replaced = concurrentBreakerMap.put(name, breaker);
-        Utils.isNull(replaced, String.format(ALREADY_REGISTERED_ERROR, name));
+        final CircuitBreaker existing = concurrentBreakerMap.putIfAbsent(name, breaker);
+        Utils.isNull(existing, String.format(ALREADY_REGISTERED_ERROR, name));
     }
 
     /**
@@ -67,24 +86,190 @@ public class CircuitBreakerRegistry {
     }
 
 
-    private CircuitBreaker createCircuitBreaker(final String identifier) {
-        final CircuitBreaker breaker = new CircuitBreaker();
-        registerCircuitBreaker(breaker, identifier);
-        return breaker;
-    }
-
-
     public CircuitBreaker getOrCreate(final String identifier) {
         Utils.hasText(identifier, "Identifier for circuit breaker needs to be set");
         final CircuitBreaker circuitBreaker = concurrentBreakerMap.get(identifier);
         if (circuitBreaker != null) {
             return circuitBreaker;
         }
-        return createCircuitBreaker(identifier);
+        return concurrentBreakerMap.computeIfAbsent(identifier, key -> new CircuitBreaker()
+                .onOpen(() -> JfrSupport.breakerTransition(key, null, SlidingWindowBreaker.State.OPEN))
+                .onHalfOpen(() -> JfrSupport.breakerTransition(key, null, SlidingWindowBreaker.State.HALF_OPEN))
+                .onClose(() -> JfrSupport.breakerTransition(key, null, SlidingWindowBreaker.State.CLOSED)));
+    }
+
+
+    /**
+     * <BR>Returns the sliding window breaker of the dependency {@code name}, created with
+     * {@link BreakerConfig#ofDefaults()} on first use<BR/>
+     *
+     * @param name dependency name
+     * @return the shared breaker
+     */
+    public <R> SlidingWindowBreaker<R> windowBreaker(final String name) {
+        return windowBreaker(name, null);
+    }
+
+
+    /**
+     * <BR>Returns the sliding window breaker of the dependency {@code name}.
+     * The first caller decides the configuration, creation is atomic<BR/>
+     *
+     * @param name   dependency name
+     * @param config configuration of the breaker, null for the defaults
+     * @return the shared breaker
+     */
+    @SuppressWarnings("unchecked")
+    public <R> SlidingWindowBreaker<R> windowBreaker(final String name, final BreakerConfig config) {
+        Utils.hasText(name, "Name for circuit breaker needs to be set");
+        final SlidingWindowBreaker breaker = concurrentWindowBreakerMap.get(name);
+        if (breaker != null) {
+            return breaker;
+        }
+        return concurrentWindowBreakerMap.computeIfAbsent(name, key -> {
+            final SlidingWindowBreaker created = new SlidingWindowBreaker(key, config == null ? BreakerConfig.ofDefaults() : config);
+            final Consumer<SlidingWindowBreaker> restore = pendingWindowBreakerRestores.remove(key);
+            if (restore != null) {
+                restore.accept(created);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * <BR>Apply {@code restore} to the sliding window breaker {@code name} now if it exists,
+     * or when it is created, so the configuration stays with the code creating it<BR/>
+     */
+    void restoreWindowBreaker(final String name, final Consumer<SlidingWindowBreaker> restore) {
+        pendingWindowBreakerRestores.put(name, restore);
+        final SlidingWindowBreaker breaker = concurrentWindowBreakerMap.get(name);
+        if (breaker != null && pendingWindowBreakerRestores.remove(name, restore)) {
+            restore.accept(breaker);
+        }
+    }
+
+    /**
+     * Returns the {@link Map} with registered sliding window breakers.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, SlidingWindowBreaker> getConcurrentWindowBreakerMap() {
+        return concurrentWindowBreakerMap;
+    }
+
+    /**
+     * <BR>Returns the compact breaker store {@code name}, holding one breaker per key for up to
+     * {@code maximumKeys} keys. The first caller decides the configuration, creation is atomic<BR/>
+     *
+     * @param name        store name
+     * @param maximumKeys keys held before the least recently used are evicted
+     * @param config      configuration shared by the breakers of all keys, null for the defaults
+     * @param idleTimeout keys idle this long are evicted first, null for
+     *                    {@link Constants#COMPACT_BREAKER_IDLE_MINUTES}
+     * @return the shared store
+     */
+    public CompactBreakerStore compactBreakerStore(final String name, final int maximumKeys,
+                                                   final BreakerConfig config, final Duration idleTimeout) {
+        Utils.hasText(name, "Name for breaker store needs to be set");
+        final CompactBreakerStore store = concurrentCompactStoreMap.get(name);
+        if (store != null) {
+            return store;
+        }
+        return concurrentCompactStoreMap.computeIfAbsent(name, key -> new CompactBreakerStore(key, maximumKeys,
+                config == null ? BreakerConfig.ofDefaults() : config,
+                idleTimeout == null ? Duration.ofMinutes(Constants.COMPACT_BREAKER_IDLE_MINUTES) : idleTimeout));
+    }
+
+    /**
+     * Returns the {@link Map} with registered compact breaker stores.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, CompactBreakerStore> getConcurrentCompactStoreMap() {
+        return concurrentCompactStoreMap;
+    }
+
+    /**
+     * <BR>Keep the named breakers in the memory mapped {@code file}, shared by every process on the host
+     * mapping the same file. From now on {@link #breaker(String, BreakerConfig)} hands out
+     * {@link SharedWindowBreaker}s, breakers handed out before stay local<BR/>
+     *
+     * @param file  region file, the same path in every process
+     * @param slots breakers the file holds when this process creates it, 0 for
+     *              {@link Constants#SHARED_BREAKER_SLOTS}
+     */
+    public synchronized void useSharedMemory(final Path file, final int slots) {
+        Utils.isNull(sharedRegion, "Shared memory is used already");
+        try {
+            sharedRegion = SharedBreakerRegion.open(file, slots > 0 ? slots : Constants.SHARED_BREAKER_SLOTS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map circuit breaker region " + file, e);
+        }
+    }
+
+    /**
+     * Whether the named breakers are shared with the other processes on the host
+     */
+    public boolean isSharedMemory() {
+        return sharedRegion != null;
+    }
+
+    /**
+     * <BR>Returns the breaker of the dependency {@code name}: its {@link SharedWindowBreaker} when
+     * shared memory is used, its {@link SlidingWindowBreaker} otherwise<BR/>
+     *
+     * @param name   dependency name
+     * @param config configuration of the breaker, null for the defaults
+     * @return the shared breaker
+     */
+    public <R> Policy<R> breaker(final String name, final BreakerConfig config) {
+        return isSharedMemory() ? sharedBreaker(name, config) : windowBreaker(name, config);
+    }
+
+    /**
+     * <BR>Returns the breaker of the dependency {@code name} in the shared memory region.
+     * The configuration must be time based and the same in every process<BR/>
+     *
+     * @param name   dependency name
+     * @param config configuration of the breaker, null for {@link BreakerConfig#timeBased(int)}
+     *               over {@link Constants#LATENCY_WINDOW_SECONDS}
+     * @return the shared breaker
+     */
+    @SuppressWarnings("unchecked")
+    public <R> SharedWindowBreaker<R> sharedBreaker(final String name, final BreakerConfig config) {
+        Utils.hasText(name, "Name for circuit breaker needs to be set");
+        final SharedBreakerRegion region = sharedRegion;
+        Utils.notNull(region, "Shared memory region, see useSharedMemory");
+        final SharedWindowBreaker breaker = concurrentSharedBreakerMap.get(name);
+        if (breaker != null) {
+            return breaker;
+        }
+        return concurrentSharedBreakerMap.computeIfAbsent(name, key -> region.breaker(key,
+                config == null ? BreakerConfig.timeBased(Constants.LATENCY_WINDOW_SECONDS) : config));
     }
 
+    /**
+     * Returns the {@link Map} with the shared memory breakers of this process.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, SharedWindowBreaker> getConcurrentSharedBreakerMap() {
+        return concurrentSharedBreakerMap;
+    }
+
+    /**
+     * <BR>Forget every breaker of the registry.<BR/>
+     * <p>The shared memory region is only dropped, not unmapped: Java has no supported way to unmap a file,
+     * and the breakers handed out before keep using its memory. The mapping is released once the region
+     * and all of its breakers are garbage collected, the file itself stays for the other processes<p/>
+     */
     @PreDestroy
     public void destroy() throws Exception {
         concurrentBreakerMap.clear();
+        concurrentWindowBreakerMap.clear();
+        pendingWindowBreakerRestores.clear();
+        concurrentCompactStoreMap.clear();
+        concurrentSharedBreakerMap.clear();
+        sharedRegion = null;
     }
 }
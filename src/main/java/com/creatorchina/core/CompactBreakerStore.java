@@ -0,0 +1,560 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>Circuit breakers for a large number of keys, such as one per tenant or per host.<BR/>
+ * <P>A {@link SlidingWindowBreaker} per key does not scale to millions of keys, so the state of all
+ * the breakers lives in a few flat primitive arrays instead: an open addressing table with linear
+ * probing, split into lock stripes that each own a slice of the arrays. A key is stored as a 64 bit
+ * hash, an entry takes about 50 bytes and there is no object per key. The table never grows, keys that
+ * stay idle longer than {@code idleTimeout} are evicted when a stripe runs full, and when none are
+ * idle the least recently used key of the stripe gives way. An evicted key starts over closed.<P/>
+ * <P>The window of a key is approximated by two periods of counters, the current one and the
+ * previous one weighted by how much of it still overlaps the window. The period is
+ * {@code windowSize} seconds for a time based config and {@code windowSize} calls for a count
+ * based one. Thresholds, half open calls and slow calls follow the {@link BreakerConfig}, shared
+ * by all keys of the store.<P/>
+ * <pre>
+ * CompactBreakerStore hosts = CircuitBreakerRegistry.instance.compactBreakerStore("hosts",
+ *         1_000_000, BreakerConfig.timeBased(30), Duration.ofMinutes(10));
+ * Failsafe.with(fallback, hosts.forKey(host)).get(() -> call(host));
+ * </pre>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ * @see CircuitBreakerRegistry#compactBreakerStore(String, int, BreakerConfig, Duration)
+ */
+public final class CompactBreakerStore {
+
+    private static final byte CLOSED = 0;
+
+    private static final byte OPEN = 1;
+
+    private static final byte HALF_OPEN = 2;
+
+    private static final SlidingWindowBreaker.State[] STATES = SlidingWindowBreaker.State.values();
+
+    private static final int CALLS = 0;
+
+    private static final int FAILURES = 1;
+
+    private static final int SLOW_CALLS = 2;
+
+    private static final int PREVIOUS = 3;
+
+    private static final int STRIDE = 6;
+
+    private static final int LRU_SAMPLES = 16;
+
+    private final String name;
+
+    private final BreakerConfig config;
+
+    private final boolean timeBased;
+
+    private final long period;
+
+    private final int failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final int halfOpenCalls;
+
+    private final long openNanos;
+
+    private final int slowCallRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final long idleNanos;
+
+    private final int maximumKeys;
+
+    private final int stripeShift;
+
+    private final Stripe[] stripes;
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final FailoverRejectedException rejection;
+
+    public CompactBreakerStore(String name, int maximumKeys, BreakerConfig config, Duration idleTimeout) {
+        Assert.notNull(config, "Breaker config is non null");
+        Assert.notNull(idleTimeout, "Idle timeout is non null");
+        Assert.isTrue(maximumKeys > 0, "Maximum keys must > 0 ~");
+        this.name = name;
+        this.config = config;
+        this.timeBased = config.getWindowType() == BreakerConfig.WindowType.TIME_BASED;
+        this.period = timeBased ? Duration.ofSeconds(config.getWindowSize()).toNanos() : config.getWindowSize();
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.minimumCalls = config.getMinimumCalls();
+        this.halfOpenCalls = config.getHalfOpenCalls();
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.slowCallNanos = config.getSlowCallThreshold().toNanos();
+        this.idleNanos = idleTimeout.toNanos();
+        this.maximumKeys = maximumKeys;
+        int stripeCount = Integer.highestOneBit(Math.min(Constants.COMPACT_BREAKER_STRIPES, maximumKeys));
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+        this.stripes = new Stripe[stripeCount];
+        int keysPerStripe = (maximumKeys + stripeCount - 1) / stripeCount;
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(keysPerStripe);
+        }
+        this.rejection = new FailoverRejectedException("Circuit breaker " + name + " is open", false);
+    }
+
+    /**
+     * <BR>Whether a call for {@code key} may run now, takes a trial permit when half open.
+     * An unknown key is added closed<BR/>
+     */
+    public boolean tryAcquirePermission(String key) {
+        return acquire(key) != OPEN;
+    }
+
+    /**
+     * <BR>Give back the trial permit of a call for {@code key} that never reached the dependency,
+     * e.g. because an inner policy rejected it. Without it the key would stay half open<BR/>
+     * Does nothing unless the key is half open
+     */
+    public void releasePermission(String key) {
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(hash);
+            if (slot >= 0 && stripe.states[slot] == HALF_OPEN && stripe.counts[slot * STRIDE + CALLS] > 0) {
+                stripe.counts[slot * STRIDE + CALLS]--;
+            }
+        }
+    }
+
+    /**
+     * Takes the permission of a call for {@code key}
+     *
+     * @return CLOSED for a normal call, HALF_OPEN for a trial call, OPEN if rejected
+     */
+    private byte acquire(String key) {
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            int slot = stripe.findOrInsert(hash, now);
+            stripe.lastAccess[slot] = now;
+            byte current = stripe.states[slot];
+            if (current == CLOSED) {
+                return CLOSED;
+            }
+            int base = slot * STRIDE;
+            if (current == OPEN) {
+                if (now - stripe.marks[slot] < 0) {
+                    return OPEN;
+                }
+                stripe.states[slot] = HALF_OPEN;
+                stripe.counts[base + CALLS] = 0;
+                stripe.counts[base + FAILURES] = 0;
+            }
+            // Half open: CALLS counts the permits handed out and FAILURES the successful trials
+            if (stripe.counts[base + CALLS] >= halfOpenCalls) {
+                return OPEN;
+            }
+            stripe.counts[base + CALLS]++;
+            return HALF_OPEN;
+        }
+    }
+
+    /**
+     * <BR>Count the outcome of a call for {@code key} that was permitted.
+     * The outcome of a key evicted in the meantime is dropped<BR/>
+     *
+     * @param failed        whether the call failed
+     * @param durationNanos how long the call took
+     */
+    public void record(String key, boolean failed, long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            int slot = stripe.find(hash);
+            if (slot < 0) {
+                return;
+            }
+            stripe.lastAccess[slot] = now;
+            int base = slot * STRIDE;
+            byte current = stripe.states[slot];
+            if (current == CLOSED) {
+                roll(stripe, slot, now);
+                stripe.counts[base + CALLS]++;
+                if (failed) {
+                    stripe.counts[base + FAILURES]++;
+                }
+                if (slow) {
+                    stripe.counts[base + SLOW_CALLS]++;
+                }
+                if ((failed || slow) && shouldOpen(stripe, slot, now)) {
+                    open(stripe, slot, now);
+                }
+            } else if (current == HALF_OPEN) {
+                if (failed || slow) {
+                    open(stripe, slot, now);
+                } else if (++stripe.counts[base + FAILURES] >= halfOpenCalls) {
+                    stripe.states[slot] = CLOSED;
+                    stripe.marks[slot] = now;
+                    clearCounts(stripe.counts, base);
+                }
+            }
+        }
+    }
+
+    /**
+     * State of the breaker of {@code key}, closed for a key the store does not hold
+     */
+    public SlidingWindowBreaker.State getState(String key) {
+        long hash = hash(key);
+        Stripe stripe = stripeOf(hash);
+        synchronized (stripe) {
+            int slot = stripe.find(hash);
+            return slot < 0 ? SlidingWindowBreaker.State.CLOSED : STATES[stripe.states[slot]];
+        }
+    }
+
+    /**
+     * <BR>A policy running calls through the breaker of {@code key}.
+     * It is a thin view on the store, create one per call or keep it<BR/>
+     */
+    public <R> Policy<R> forKey(String key) {
+        Assert.notNull(key, "Key is non null");
+        return new KeyedBreaker<>(key);
+    }
+
+    /**
+     * <BR>Evict every key idle longer than the idle timeout<BR/>
+     *
+     * @return number of keys evicted
+     */
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                evicted += stripe.evictIdle(now);
+            }
+        }
+        return evicted;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BreakerConfig getConfig() {
+        return config;
+    }
+
+    public int getMaximumKeys() {
+        return maximumKeys;
+    }
+
+    /**
+     * Keys currently held
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Keys evicted since the store was created, idle or not
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes.length == 1 ? stripes[0] : stripes[(int) (hash >>> stripeShift)];
+    }
+
+    private void roll(Stripe stripe, int slot, long now) {
+        int base = slot * STRIDE;
+        int[] counts = stripe.counts;
+        if (timeBased) {
+            long elapsed = now - stripe.marks[slot];
+            if (elapsed < period) {
+                return;
+            }
+            if (elapsed < 2 * period) {
+                shift(counts, base);
+                stripe.marks[slot] += period;
+            } else {
+                clearCounts(counts, base);
+                stripe.marks[slot] = now;
+            }
+        } else if (counts[base + CALLS] >= period) {
+            shift(counts, base);
+        }
+    }
+
+    private boolean shouldOpen(Stripe stripe, int slot, long now) {
+        int base = slot * STRIDE;
+        int[] counts = stripe.counts;
+        double weight = timeBased
+                ? 1 - (double) (now - stripe.marks[slot]) / period
+                : 1 - (double) counts[base + CALLS] / period;
+        double calls = counts[base + CALLS] + counts[base + PREVIOUS + CALLS] * weight;
+        if (calls < minimumCalls) {
+            return false;
+        }
+        double failures = counts[base + FAILURES] + counts[base + PREVIOUS + FAILURES] * weight;
+        double slowCalls = counts[base + SLOW_CALLS] + counts[base + PREVIOUS + SLOW_CALLS] * weight;
+        return failures * 100 >= calls * failureRateThreshold || slowCalls * 100 >= calls * slowCallRateThreshold;
+    }
+
+    private void open(Stripe stripe, int slot, long now) {
+        stripe.states[slot] = OPEN;
+        stripe.marks[slot] = now + openNanos;
+    }
+
+    private static void shift(int[] counts, int base) {
+        System.arraycopy(counts, base, counts, base + PREVIOUS, PREVIOUS);
+        counts[base + CALLS] = 0;
+        counts[base + FAILURES] = 0;
+        counts[base + SLOW_CALLS] = 0;
+    }
+
+    private static void clearCounts(int[] counts, int base) {
+        for (int i = 0; i < STRIDE; i++) {
+            counts[base + i] = 0;
+        }
+    }
+
+    /**
+     * FNV-1a over the chars with a murmur3 finalizer, 0 marks an empty slot
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h = (h ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * One lock stripe, an open addressing table of at most {@code maxSize} keys
+     * at a load factor of at most 3/4. Every field is guarded by the stripe itself
+     */
+    private final class Stripe {
+
+        private final int maxSize;
+
+        private final int mask;
+
+        private final long[] hashes;
+
+        private final long[] lastAccess;
+
+        /**
+         * Start of the current period while closed, end of the open duration while open
+         */
+        private final long[] marks;
+
+        private final byte[] states;
+
+        private final int[] counts;
+
+        private int size;
+
+        private long nextSweep = System.nanoTime();
+
+        Stripe(int maxSize) {
+            int capacity = Math.max(2, Integer.highestOneBit(maxSize * 4 / 3 + 1) << 1);
+            this.maxSize = maxSize;
+            this.mask = capacity - 1;
+            this.hashes = new long[capacity];
+            this.lastAccess = new long[capacity];
+            this.marks = new long[capacity];
+            this.states = new byte[capacity];
+            this.counts = new int[capacity * STRIDE];
+        }
+
+        int find(long hash) {
+            for (int slot = (int) hash & mask; ; slot = (slot + 1) & mask) {
+                long h = hashes[slot];
+                if (h == hash) {
+                    return slot;
+                }
+                if (h == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        int findOrInsert(long hash, long now) {
+            int slot = find(hash);
+            if (slot >= 0) {
+                return slot;
+            }
+            if (size >= maxSize) {
+                // A full sweep at most once a quarter of the idle timeout, a sampled eviction otherwise
+                if (now - nextSweep < 0 || evictIdle(now) == 0) {
+                    evictLeastRecentlyUsed((int) hash & mask);
+                }
+            }
+            slot = (int) hash & mask;
+            while (hashes[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            marks[slot] = now;
+            states[slot] = CLOSED;
+            size++;
+            return slot;
+        }
+
+        int evictIdle(long now) {
+            nextSweep = now + idleNanos / 4;
+            int evicted = 0;
+            for (int slot = 0; slot < hashes.length; slot++) {
+                // Removing shifts a later entry back into this slot, check it again
+                while (hashes[slot] != 0 && now - lastAccess[slot] > idleNanos) {
+                    remove(slot);
+                    evicted++;
+                }
+            }
+            return evicted;
+        }
+
+        /**
+         * Evict the least recently used of the keys next to {@code from}, a full stripe is more
+         * than a third occupied so the scan stays short and within a few cache lines
+         */
+        void evictLeastRecentlyUsed(int from) {
+            int oldest = -1;
+            int sampled = 0;
+            for (int slot = from; sampled < LRU_SAMPLES && sampled < size; slot = (slot + 1) & mask) {
+                if (hashes[slot] != 0) {
+                    if (oldest < 0 || lastAccess[slot] - lastAccess[oldest] < 0) {
+                        oldest = slot;
+                    }
+                    sampled++;
+                }
+            }
+            if (oldest >= 0) {
+                remove(oldest);
+            }
+        }
+
+        /**
+         * Backward shift deletion, keeps every probe sequence unbroken without tombstones
+         */
+        void remove(int hole) {
+            for (int slot = (hole + 1) & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+                int home = (int) hashes[slot] & mask;
+                boolean reachable = hole <= slot ? hole < home && home <= slot : hole < home || home <= slot;
+                if (reachable) {
+                    continue;
+                }
+                hashes[hole] = hashes[slot];
+                lastAccess[hole] = lastAccess[slot];
+                marks[hole] = marks[slot];
+                states[hole] = states[slot];
+                System.arraycopy(counts, slot * STRIDE, counts, hole * STRIDE, STRIDE);
+                hole = slot;
+            }
+            hashes[hole] = 0;
+            states[hole] = CLOSED;
+            clearCounts(counts, hole * STRIDE);
+            size--;
+            evictions.increment();
+        }
+    }
+
+    private final class KeyedBreaker<R> implements Policy<R> {
+
+        private final String key;
+
+        KeyedBreaker(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public PolicyExecutor toExecutor(AbstractExecution execution) {
+            return new PolicyExecutor<Policy<R>>(this, execution) {
+
+                private long startNanos;
+
+                private boolean trial;
+
+                @Override
+                protected ExecutionResult preExecute() {
+                    byte permission = acquire(key);
+                    if (permission == OPEN) {
+                        return ExecutionResult.failure(rejection);
+                    }
+                    trial = permission == HALF_OPEN;
+                    startNanos = System.nanoTime();
+                    return null;
+                }
+
+                @Override
+                protected void onSuccess(ExecutionResult result) {
+                    record(key, false, System.nanoTime() - startNanos);
+                }
+
+                @Override
+                protected ExecutionResult onFailure(ExecutionResult result) {
+                    // A call rejected by an inner policy never reached the dependency
+                    if (!(result.getFailure() instanceof FailoverRejectedException)) {
+                        record(key, true, System.nanoTime() - startNanos);
+                    } else if (trial) {
+                        releasePermission(key);
+                    }
+                    return result;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.FailsafeFuture;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.util.concurrent.Scheduler;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <BR>An adaptive limit on the in-flight executions of one dependency.<BR/>
+ * <P>Every attempt takes a permit before it runs and gives it back when it completes. When no
+ * permit is left the attempt is rejected with {@link FailoverRejectedException} on the calling
+ * thread, the retry policy aborts and the call goes straight to the fallback instead of waiting
+ * in the queue of the executor.<P/>
+ * <P>The limit is not fixed, it follows the round-trip time of the completed attempts:
+ * <ul>
+ *     <li>{@link Algorithm#AIMD} adds one permit per fast success while the limit is in use and
+ *     multiplies the limit by {@code 0.9} on a failure or on an attempt slower than twice the baseline RTT</li>
+ *     <li>{@link Algorithm#GRADIENT} scales the limit by the ratio of the baseline RTT to the recent RTT,
+ *     so it shrinks as soon as a queue builds up on the dependency and grows back by {@code sqrt(limit)}</li>
+ * </ul>
+ * Acquiring is a lock-free CAS, only the limit update after each attempt is synchronized.
+ * Limits are shared per dependency name, see {@link FailoverRegistry#concurrencyLimit}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class ConcurrencyLimit<R> implements Policy<R> {
+
+    /**
+     * AIMD decrease factor on a dropped attempt
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * An attempt slower than this many baseline RTTs counts as a drop for AIMD
+     */
+    private static final double RTT_TOLERANCE = 2.0;
+
+    private static final double SHORT_RTT_SMOOTHING = 0.1;
+
+    private static final double LONG_RTT_SMOOTHING = 0.01;
+
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    public enum Algorithm {
+        AIMD, GRADIENT
+    }
+
+    private final Algorithm algorithm;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    /**
+     * Thrown for every attempt over the limit, preallocated without a stack trace as rejecting is the
+     * overload path. The limit it hit is {@link #getLimit()}
+     */
+    private final FailoverRejectedException rejection =
+            new FailoverRejectedException("Concurrency limit is reached", false);
+
+    private volatile int limit;
+
+    private double estimatedLimit;
+
+    private double shortRtt;
+
+    private double longRtt;
+
+    public ConcurrencyLimit(Algorithm algorithm, int initialLimit, int maxLimit) {
+        Assert.notNull(algorithm, "Algorithm is non null");
+        Assert.isTrue(initialLimit >= Constants.CONCURRENCY_LIMIT_MIN, "Initial limit must >= " + Constants.CONCURRENCY_LIMIT_MIN + " ~");
+        Assert.isTrue(maxLimit >= initialLimit, "Max limit must >= initial limit ~");
+        this.algorithm = algorithm;
+        this.minLimit = Constants.CONCURRENCY_LIMIT_MIN;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    /**
+     * <BR>Take one permit<BR/>
+     *
+     * @return false if the limit is reached
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inflight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * <BR>Give back a permit and adapt the limit to the attempt<BR/>
+     *
+     * @param rttNanos round-trip time of the attempt
+     * @param dropped  whether the attempt failed
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inflight.getAndDecrement();
+        onSample(Math.max(1, rttNanos), current, dropped);
+    }
+
+    private synchronized void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (longRtt == 0) {
+            shortRtt = longRtt = rttNanos;
+        }
+        shortRtt += (rttNanos - shortRtt) * SHORT_RTT_SMOOTHING;
+        longRtt += (rttNanos - longRtt) * LONG_RTT_SMOOTHING;
+        // Let the baseline follow a lasting shift of the dependency's latency instead of shrinking forever
+        if (longRtt / shortRtt > RTT_TOLERANCE) {
+            longRtt *= 0.95;
+        }
+
+        double next;
+        if (algorithm == Algorithm.AIMD) {
+            if (dropped || rttNanos > longRtt * RTT_TOLERANCE) {
+                next = estimatedLimit * BACKOFF_RATIO;
+            } else if (inflight * 2 >= estimatedLimit) {
+                next = estimatedLimit + 1;
+            } else {
+                return;
+            }
+        } else {
+            // An idle dependency tells nothing about its capacity
+            if (!dropped && inflight * 2 < estimatedLimit) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+            double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+            next = estimatedLimit * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * The current limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Executions holding a permit right now
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    @Override
+    public PolicyExecutor toExecutor(AbstractExecution execution) {
+        return new PolicyExecutor<Policy<R>>(this, execution) {
+
+            private long startNanos;
+
+            @Override
+            protected ExecutionResult preExecute() {
+                if (!tryAcquire()) {
+                    return ExecutionResult.failure(rejection);
+                }
+                startNanos = System.nanoTime();
+                return null;
+            }
+
+            @Override
+            protected ExecutionResult postExecute(ExecutionResult result) {
+                release(System.nanoTime() - startNanos, result.getFailure() != null);
+                return super.postExecute(result);
+            }
+
+            @Override
+            protected CompletableFuture<ExecutionResult> postExecuteAsync(ExecutionResult result, Scheduler scheduler,
+                                                                          FailsafeFuture<Object> future) {
+                release(System.nanoTime() - startNanos, result.getFailure() != null);
+                return super.postExecuteAsync(result, scheduler, future);
+            }
+        };
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+/**
+ * <BR>Decides which threads run the attempts of a pipeline and the continuations after a retry delay<BR/>
+ * <ul>
+ * <li>{@link #POOLED}: the shared fixed thread pool of {@link SafeFailback}, works everywhere</li>
+ * <li>{@link #VIRTUAL}: one virtual thread per task. A blocked supplier or a waiting retry only costs
+ * a small heap object instead of an OS thread. Needs a JVM with virtual threads (Java 21+),
+ * on older JVMs it silently falls back to {@link #POOLED}</li>
+ * </ul>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ * @see FailoverRegister#withExecutionMode(ExecutionMode)
+ */
+public enum ExecutionMode {
+
+    POOLED,
+
+    VIRTUAL;
+
+    /**
+     * Whether this mode can run on the current JVM
+     *
+     * @return false only for {@link #VIRTUAL} on a JVM without virtual threads
+     */
+    public boolean isSupported() {
+        return this == POOLED || SafeFailback.virtualExecutorService() != null;
+    }
+}
@@ -26,10 +26,13 @@
 package com.creatorchina.core;
 
 import com.creatorchina.util.NotNull;
+import net.jodah.failsafe.FailsafeException;
 import net.jodah.failsafe.Policy;
 import net.jodah.failsafe.function.CheckedSupplier;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 
 /**
@@ -57,4 +60,52 @@ public interface Failover<S, U> {
      * @return
      */
     CompletableFuture<S> doRenderSync(@NotNull CheckedSupplier supplier, @NotNull Policy<U>... policys) throws ExecutionException, InterruptedException;
+
+    /**
+     * Caller-thread rendering retry strategy, the first attempt runs on the calling thread
+     * and the result is returned directly.
+     * By default it waits for {@link #doRenderSync}, implementations should override it to run inline
+     *
+     * @param supplier
+     * @param policys
+     * @return
+     */
+    default S doRender(@NotNull CheckedSupplier supplier, @NotNull Policy<U>... policys) {
+        try {
+            return doRenderSync(supplier, policys).join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FailsafeException(e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable failure = e.getCause();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new FailsafeException(failure);
+        }
+    }
+
+    /**
+     * Non-blocking rendering retry strategy for suppliers that are already asynchronous.
+     * No thread waits for the stage, retries and fallbacks are chained on its completion.
+     * By default every attempt waits for its stage inside {@link #doRenderAsync},
+     * implementations should override it to chain on the stage instead
+     *
+     * @param supplier returns the stage of one attempt
+     * @param policys
+     * @return
+     */
+    default CompletableFuture<S> doRenderStageAsync(@NotNull CheckedSupplier<? extends CompletionStage> supplier,
+                                                    @NotNull Policy<U>... policys) {
+        return doRenderAsync(() -> {
+            try {
+                return supplier.get().toCompletableFuture().join();
+            } catch (CompletionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        }, policys);
+    }
 }
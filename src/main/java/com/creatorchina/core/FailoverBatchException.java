@@ -0,0 +1,59 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <BR>Raised when some keys of a batch failed or were missing from the result.
+ * The retry policy retries it with only those keys, and the fallback receives
+ * it once per key that never succeeded<BR/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ **/
+public class FailoverBatchException extends RuntimeException {
+
+    private final List<?> keys;
+
+    public FailoverBatchException(List<?> keys) {
+        super(keys.size() + " keys of the batch are missing");
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    public FailoverBatchException(List<?> keys, Throwable throwable) {
+        super(keys.size() + " keys of the batch failed", throwable);
+        this.keys = Collections.unmodifiableList(keys);
+    }
+
+    /**
+     * The keys that failed
+     */
+    public List<?> getKeys() {
+        return keys;
+    }
+}
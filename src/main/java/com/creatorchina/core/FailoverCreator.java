@@ -26,9 +26,12 @@
 package com.creatorchina.core;
 
 import com.creatorchina.util.NotNull;
+import net.jodah.failsafe.ExecutionContext;
+import net.jodah.failsafe.event.ExecutionAttemptedEvent;
 import net.jodah.failsafe.function.CheckedConsumer;
 import net.jodah.failsafe.function.CheckedFunction;
 import net.jodah.failsafe.function.CheckedSupplier;
+import net.jodah.failsafe.function.ContextualSupplier;
 
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
@@ -49,6 +52,16 @@ final public class FailoverCreator {
 
     private static FailoverRegister POLICY_KERNEL_CORE = FailoverRegister.instance;
 
+    /**
+     * Name of the pipeline behind {@link #defaultFailover} in {@link FailoverRegistry}
+     */
+    public static final String DEFAULT_FAILOVER = "failover-creator.default";
+
+    /**
+     * Name of the pipeline behind {@link #customizeResultFailover} and {@link #customizeFunctionFailover}
+     */
+    public static final String CUSTOMIZE_FAILOVER = "failover-creator.customize";
+
     /**
      * <BR>This method is the default constructor, simple functions and I help you achieve<BR/>
      * <PRE>The functions are as follows:<PRE/>
@@ -93,13 +106,42 @@ final public class FailoverCreator {
     public static <S, U> CompletableFuture<S> defaultFailover(CheckedConsumer listener,
                                                               @NotNull CheckedSupplier<U> invoke,
                                                               Boolean isAsync) {
-        FailoverRegister register = POLICY_KERNEL_CORE.
-                buildPolicy();
-        if (listener != null) {
-            register.onFailedAttempt(listener);
+        FailoverPlan<S, U> plan = defaultPlan();
+        if (listener == null) {
+            return plan.assemblyFailover(invoke, isAsync);
         }
-        return register.withDelay(Duration.ofSeconds(DELAY_RETRY)).
-                assemblyFailover(invoke, isAsync);
+        return plan.assemblyFailover(onFailedAttempt(listener, invoke), isAsync);
+    }
+
+
+    /**
+     * <BR>Same pipeline as {@link #defaultFailover}, but identical concurrent calls are coalesced.<BR/>
+     * <p>While a call with an equal {@code key} is in flight, no new execution with its own retries
+     * is started, every caller receives the result or fallback of the running one.
+     * Use a key that identifies the request completely, e.g. the URL with its parameters<p/>
+     *
+     * @param key     identifies the request
+     * @param invoke  You need a fault-tolerant method
+     * @param isAsync Whether to get the return value of the method asynchronously.
+     *                By default, null  is synchronous and true & nonnull is asynchronous
+     * @param <S>
+     * @param <U>
+     * @return
+     * @see SingleFlight
+     */
+    public static <S, U> CompletableFuture<S> coalescedFailover(@NotNull Object key,
+                                                                @NotNull CheckedSupplier<U> invoke,
+                                                                Boolean isAsync) {
+        FailoverPlan<S, U> plan = defaultPlan();
+        return plan.assemblyFailover(key, invoke, isAsync);
+    }
+
+
+    private static <S, U> FailoverPlan<S, U> defaultPlan() {
+        return FailoverRegistry.instance.getOrCreate(DEFAULT_FAILOVER,
+                () -> POLICY_KERNEL_CORE.buildPolicy()
+                        .withDelay(Duration.ofSeconds(DELAY_RETRY))
+                        .build());
     }
 
 
@@ -120,16 +162,8 @@ final public class FailoverCreator {
                                                                       @NotNull CheckedSupplier<U> invoke,
                                                                       @NotNull U result,
                                                                       Boolean isAsync) {
-        FailoverRegister register = POLICY_KERNEL_CORE
-                .buildPolicy(MinaFallback.of(() -> result));
-
-        if (listener != null) {
-            register.onFailedAttempt(listener);
-        }
-
-        return register.withMaxAttempts(WITH_MAX_ATTEMPTS)
-                .withDelay(Duration.ofSeconds(DELAY_RETRY)).
-                        assemblyFailover(invoke, isAsync);
+        FailoverPlan<S, U> plan = customizePlan();
+        return plan.assemblyFailover(substituting(listener, invoke, event -> result), isAsync);
     }
 
 
@@ -151,16 +185,89 @@ final public class FailoverCreator {
                                                                         @NotNull CheckedSupplier<U> invoke,
                                                                         @NotNull CheckedFunction result,
                                                                         Boolean isAsync) {
-        FailoverRegister register = POLICY_KERNEL_CORE
-                .buildPolicy(MinaFallback.ofException(result));
+        FailoverPlan<S, U> plan = customizePlan();
+        return plan.assemblyFailover(substituting(listener, invoke, result), isAsync);
+    }
 
-        if (listener != null) {
-            register.onFailedAttempt(listener);
-        }
-        return register.withMaxAttempts(WITH_MAX_ATTEMPTS)
-                .withDelay(Duration.ofSeconds(DELAY_RETRY)).
-                        assemblyFailover(invoke, isAsync);
+
+    @SuppressWarnings("unchecked")
+    private static <S, U> FailoverPlan<S, U> customizePlan() {
+        return FailoverRegistry.instance.getOrCreate(CUSTOMIZE_FAILOVER,
+                () -> POLICY_KERNEL_CORE.buildPolicy(MinaFallback.ofException(event -> {
+                    Throwable failure = ((ExecutionAttemptedEvent) event).getLastFailure();
+                    return failure instanceof Substitution ? ((Substitution) failure).apply() : null;
+                }))
+                        .withMaxAttempts(WITH_MAX_ATTEMPTS)
+                        .withDelay(Duration.ofSeconds(DELAY_RETRY))
+                        .build());
     }
 
 
+    /**
+     * <BR>Carry the fallback of this call with its failure, so the cached pipeline of
+     * {@link #customizeResultFailover} and {@link #customizeFunctionFailover} can serve every result<BR/>
+     * The listener is raised from inside the supplier as in {@link #onFailedAttempt}
+     */
+    private static <U> ContextualSupplier<U> substituting(CheckedConsumer listener,
+                                                          CheckedSupplier<U> invoke,
+                                                          CheckedFunction fallback) {
+        return context -> {
+            try {
+                return invoke.get();
+            } catch (Exception failure) {
+                if (listener != null) {
+                    try {
+                        listener.accept(new ExecutionAttemptedEvent<>(null, failure, context));
+                    } catch (Throwable ignore) {
+                        //ignore
+                    }
+                }
+                throw new Substitution(failure, context, fallback);
+            }
+        };
+    }
+
+
+    /**
+     * <BR>Raise the failed attempt event from inside the supplier, so the cached pipeline
+     * can serve callers that bring their own listener<BR/>
+     * Any exceptions that are thrown from within the listener are ignored.
+     */
+    private static <U> ContextualSupplier<U> onFailedAttempt(CheckedConsumer listener, CheckedSupplier<U> invoke) {
+        return context -> {
+            try {
+                return invoke.get();
+            } catch (Throwable failure) {
+                try {
+                    listener.accept(new ExecutionAttemptedEvent<>(null, failure, context));
+                } catch (Throwable ignore) {
+                    //ignore
+                }
+                throw failure;
+            }
+        };
+    }
+
+
+    /**
+     * The failure of one attempt together with the fallback of its call,
+     * the fallback receives the original failure again
+     */
+    private static final class Substitution extends RuntimeException {
+
+        private final transient ExecutionContext context;
+
+        private final transient CheckedFunction fallback;
+
+        Substitution(Exception failure, ExecutionContext context, CheckedFunction fallback) {
+            super(null, failure, false, false);
+            this.context = context;
+            this.fallback = fallback;
+        }
+
+        @SuppressWarnings("unchecked")
+        Object apply() throws Throwable {
+            return fallback.apply(new ExecutionAttemptedEvent<>(null, getCause(), context));
+        }
+    }
 }
@@ -0,0 +1,415 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.util.NotNull;
+import net.jodah.failsafe.CircuitBreaker;
+import net.jodah.failsafe.FailsafeException;
+import net.jodah.failsafe.FailsafeExecutor;
+import net.jodah.failsafe.Fallback;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.function.CheckedSupplier;
+import net.jodah.failsafe.function.ContextualSupplier;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <BR>An immutable, precompiled failover pipeline.<BR/>
+ * <P>A plan is produced once by {@link FailoverRegister#build()}: the policy chain is frozen into an array
+ * and the Failsafe executor is created at build time, so every call through the plan only pays for the
+ * execution itself. Plans are thread-safe and are meant to be kept in a field and reused for the whole
+ * life of the process.<P/>
+ * <pre>
+ * FailoverPlan plan = FailoverRegister.instance
+ *         .buildPolicy()
+ *         .withMaxAttempts(3)
+ *         .withDelay(Duration.ofSeconds(2))
+ *         .build();
+ *
+ * CompletableFuture&lt;HttpResponse&gt; future = plan.getAsync(() -&gt; Unirest.get(FAILOVER).asString());
+ * </pre>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class FailoverPlan<S, U> {
+
+    private static final Logger logger = Logger.getGlobal();
+
+    private final Policy<U>[] policies;
+
+    private final FailsafeExecutor<S> executor;
+
+    private final FailsafeExecutor<S> recordedExecutor;
+
+    private final Hedging hedging;
+
+    private final ExecutorService executorService;
+
+    private final SingleFlight<Object, S> flights = new SingleFlight<>();
+
+    private final LastKnownGood<Object, S> lastKnownGood;
+
+    private final Policy<U>[] circuitBreakers;
+
+    private final Fallback fallback;
+
+    private final FailsafeExecutor batchExecutor;
+
+    private final String description;
+
+    /**
+     * The attempts run on the threads of a bulkhead, never on the caller's
+     */
+    private final boolean isolated;
+
+    FailoverPlan(@NotNull Policy<U>[] policies, @NotNull SafeFailback<S, U> safeFailback, Hedging hedging,
+                 LastKnownGood<Object, S> lastKnownGood) {
+        Assert.notNull(policies, "Policies of the plan is non null");
+        Assert.notNull(safeFailback, "Executor of the plan is non null");
+        this.policies = policies.clone();
+        this.executor = safeFailback.compile(this.policies);
+        this.recordedExecutor = JfrSupport.isAvailable() ? safeFailback.compile(JfrSupport.instrumented(this.policies)) : null;
+        this.hedging = hedging;
+        this.executorService = safeFailback.executor();
+        this.lastKnownGood = lastKnownGood;
+        this.circuitBreakers = Arrays.stream(this.policies)
+                .filter(policy -> policy instanceof CircuitBreaker || policy instanceof SlidingWindowBreaker
+                        || policy instanceof SharedWindowBreaker)
+                .toArray(Policy[]::new);
+        this.fallback = Arrays.stream(this.policies)
+                .filter(Fallback.class::isInstance)
+                .map(Fallback.class::cast)
+                .findFirst()
+                .orElse(null);
+        this.batchExecutor = safeFailback.compile(Arrays.stream(this.policies)
+                .filter(policy -> !(policy instanceof Fallback))
+                .toArray(Policy[]::new));
+        this.description = PipelineDiagnostics.describe(this.policies);
+        this.isolated = Arrays.stream(this.policies)
+                .anyMatch(policy -> policy instanceof Bulkhead
+                        && ((Bulkhead) policy).getIsolation() == Bulkhead.Isolation.THREAD_POOL);
+        logger.log(Level.FINE, "Failover plan built: {0}", description);
+    }
+
+    /**
+     * The chain with the flight recorder events while a recording is running, the plain one otherwise
+     */
+    private FailsafeExecutor<S> executor() {
+        return JfrSupport.isRecording() ? recordedExecutor : executor;
+    }
+
+    /**
+     * The retry strategy returns results asynchronously
+     *
+     * @param invoke The method you need to pass in
+     * @return CompletableFuture<S>
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<S> getAsync(@NotNull CheckedSupplier<U> invoke) {
+        if (hedging != null) {
+            return executor().getStageAsync((CheckedSupplier) () -> hedging.race(invoke, executorService));
+        }
+        return executor().getAsync((CheckedSupplier) invoke);
+    }
+
+    /**
+     * <BR>Failover for a method that is already asynchronous.<BR/>
+     * <p>Retries, delays and the fallback are chained on the returned stage, no thread waits for it<p/>
+     *
+     * @param invoke returns the stage of one attempt
+     * @return CompletableFuture<S>
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<S> getStageAsync(@NotNull CheckedSupplier<? extends CompletionStage<U>> invoke) {
+        if (hedging != null) {
+            return executor().getStageAsync((CheckedSupplier) () -> hedging.raceStage(invoke, executorService));
+        }
+        return executor().getStageAsync((CheckedSupplier) invoke);
+    }
+
+    /**
+     * <BR>Runs the pipeline on the calling thread and returns the result directly.<BR/>
+     * <p>The first attempt runs inline without any thread hop or future allocation,
+     * the caller only sleeps when a retry delay is actually needed. With hedging the attempt and its hedge
+     * run on the executor of the plan and the caller waits for the first success. With a thread pool
+     * {@link Bulkhead} the attempts run on its threads and the caller waits as well<p/>
+     *
+     * @param invoke The method you need to pass in
+     * @return the result of the method, or of the fallback
+     * @throws net.jodah.failsafe.FailsafeException if the last failure is checked and not handled by the fallback
+     */
+    @SuppressWarnings("unchecked")
+    public S execute(@NotNull CheckedSupplier<U> invoke) {
+        if (isolated) {
+            return join(getAsync(invoke));
+        }
+        if (hedging != null) {
+            return (S) executor().get((CheckedSupplier) hedging.blocking(invoke, executorService));
+        }
+        return (S) executor().get((CheckedSupplier) invoke);
+    }
+
+    /**
+     * <BR>Waits for an execution running on other threads and rethrows its failure the way
+     * {@link net.jodah.failsafe.FailsafeExecutor#get} does on the calling thread<BR/>
+     */
+    static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable failure = e.getCause();
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new FailsafeException(failure);
+        }
+    }
+
+    /**
+     * <BR>Runs the pipeline on the calling thread and returns an already completed future.
+     * If the execution itself fails, a future completed with null is returned<BR/>
+     *
+     * @param invoke The method you need to pass in
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> getSync(@NotNull CheckedSupplier<U> invoke) {
+        try {
+            return CompletableFuture.completedFuture(execute(invoke));
+        } catch (Exception e) {
+            //ignore
+            logger.log(Level.WARNING, "Current method execution failed" + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Same contract as {@link FailoverRegister#assemblyFailover(CheckedSupplier, Boolean)}
+     *
+     * @param invoke  The method you need to pass in
+     * @param isAsync Whether to get the return value of the method asynchronously.
+     *                By default, null  is synchronous and true & nonnull is asynchronous
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> assemblyFailover(@NotNull CheckedSupplier<U> invoke, Boolean isAsync) {
+        return isAsync == null || !isAsync ? getSync(invoke) : getAsync(invoke);
+    }
+
+    /**
+     * <BR>Coalesced {@link #getAsync(CheckedSupplier)}: while a call with an equal {@code key} is in flight,
+     * no new execution is started and its result is shared, see {@link SingleFlight}<BR/>
+     *
+     * @param key    identifies the request, e.g. the URL
+     * @param invoke The method you need to pass in
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> getAsync(@NotNull Object key, @NotNull CheckedSupplier<U> invoke) {
+        if (lastKnownGood != null) {
+            return flights.execute(key, () -> staleWhileRevalidate(key, invoke));
+        }
+        return flights.execute(key, () -> getAsync(invoke));
+    }
+
+    /**
+     * <BR>Coalesced {@link #getStageAsync(CheckedSupplier)}, serving the last good value of the key
+     * as {@link #getAsync(Object, CheckedSupplier)} does<BR/>
+     *
+     * @param key    identifies the request, e.g. the URL
+     * @param invoke returns the stage of one attempt
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> getStageAsync(@NotNull Object key,
+                                              @NotNull CheckedSupplier<? extends CompletionStage<U>> invoke) {
+        if (lastKnownGood != null) {
+            return flights.execute(key, () -> lastKnownGood.serveStage(key, invoke, this::getStageAsync,
+                    () -> isCircuitOpen(circuitBreakers)));
+        }
+        return flights.execute(key, () -> getStageAsync(invoke));
+    }
+
+    /**
+     * <BR>Coalesced {@link #execute(CheckedSupplier)}: the first caller of a key runs the pipeline on its
+     * own thread, the callers arriving meanwhile wait for its result<BR/>
+     *
+     * @param key    identifies the request, e.g. the URL
+     * @param invoke The method you need to pass in
+     * @return the result of the method, or of the fallback
+     */
+    public S execute(@NotNull Object key, @NotNull CheckedSupplier<U> invoke) {
+        if (lastKnownGood != null) {
+            // The stale value is served while the refresh keeps running, so the caller can not run it
+            try {
+                return getAsync(key, invoke).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return flights.join(key, () -> execute(invoke));
+    }
+
+    /**
+     * Coalesced {@link #assemblyFailover(CheckedSupplier, Boolean)}
+     *
+     * @param key     identifies the request, e.g. the URL
+     * @param invoke  The method you need to pass in
+     * @param isAsync Whether to get the return value of the method asynchronously.
+     *                By default, null  is synchronous and true & nonnull is asynchronous
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> assemblyFailover(@NotNull Object key, @NotNull CheckedSupplier<U> invoke, Boolean isAsync) {
+        if (isAsync != null && isAsync) {
+            return getAsync(key, invoke);
+        }
+        try {
+            return CompletableFuture.completedFuture(execute(key, invoke));
+        } catch (Exception e) {
+            //ignore
+            logger.log(Level.WARNING, "Current method execution failed" + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * <BR>Runs a bulk call on the calling thread, retrying only the keys that failed or came back missing.<BR/>
+     * <p>Each retry sends the keys still pending, and the fallback is applied per key to the ones that
+     * never succeeded, see {@link BatchFailover}<p/>
+     *
+     * @param keys     the keys to look up
+     * @param bulkCall looks up a list of keys, a key missing from the map or mapped to null counts as failed
+     * @return a value for every key, the fallback's for the keys that never succeeded
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Map<K, V> executeBatch(@NotNull List<K> keys, @NotNull Function<List<K>, Map<K, V>> bulkCall) {
+        BatchFailover<K, V> batch = new BatchFailover<>(keys, bulkCall);
+        try {
+            batchExecutor.get(batch::attempt);
+        } catch (RuntimeException e) {
+            return batch.complete(e, fallback, lastKnownGood);
+        }
+        return batch.complete(null, fallback, lastKnownGood);
+    }
+
+    /**
+     * <BR>Asynchronous {@link #executeBatch(List, Function)}, retry delays are scheduled instead of slept<BR/>
+     *
+     * @param keys     the keys to look up
+     * @param bulkCall looks up a list of keys, a key missing from the map or mapped to null counts as failed
+     * @return CompletableFuture of a value for every key
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> CompletableFuture<Map<K, V>> getBatchAsync(@NotNull List<K> keys,
+                                                             @NotNull Function<List<K>, Map<K, V>> bulkCall) {
+        BatchFailover<K, V> batch = new BatchFailover<>(keys, bulkCall);
+        return ((CompletableFuture<Map<K, V>>) batchExecutor.getAsync(batch::attempt))
+                .handle((results, failure) -> batch.complete(failure, fallback, lastKnownGood));
+    }
+
+    /**
+     * <BR>Serve the last good value of {@code key} as soon as the pipeline can not deliver a fresh one,
+     * and let the pipeline refresh it in the background, see {@link LastKnownGood}<BR/>
+     */
+    private CompletableFuture<S> staleWhileRevalidate(Object key, CheckedSupplier<U> invoke) {
+        return lastKnownGood.serve(key, invoke, this::getAsync, () -> isCircuitOpen(circuitBreakers));
+    }
+
+    /**
+     * The threads that run the attempts of this plan
+     */
+    ExecutorService executorService() {
+        return executorService;
+    }
+
+    /**
+     * Whether one of the circuit breakers among {@code policies} is open, the other policies are skipped
+     */
+    static boolean isCircuitOpen(Policy<?>[] policies) {
+        for (Policy<?> policy : policies) {
+            boolean open;
+            if (policy instanceof SlidingWindowBreaker) {
+                open = ((SlidingWindowBreaker) policy).isOpen();
+            } else if (policy instanceof SharedWindowBreaker) {
+                open = ((SharedWindowBreaker) policy).isOpen();
+            } else if (policy instanceof CircuitBreaker) {
+                open = ((CircuitBreaker) policy).isOpen();
+            } else {
+                open = false;
+            }
+            if (open) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Variant for suppliers that need the execution context, e.g. to raise per-call attempt events
+     */
+    @SuppressWarnings("unchecked")
+    CompletableFuture<S> assemblyFailover(@NotNull ContextualSupplier<U> invoke, Boolean isAsync) {
+        if (isAsync != null && isAsync) {
+            return executor().getAsync((ContextualSupplier) invoke);
+        }
+        try {
+            return CompletableFuture.completedFuture((S) executor().get((ContextualSupplier) invoke));
+        } catch (Exception e) {
+            //ignore
+            logger.log(Level.WARNING, "Current method execution failed" + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * Returns the frozen policy chain, outermost policy first
+     *
+     * @return an unmodifiable view of the policies
+     */
+    public List<Policy<U>> getPolicies() {
+        return Collections.unmodifiableList(Arrays.asList(policies));
+    }
+
+    /**
+     * Returns the policy chain in one line, rendered once when the plan was built
+     *
+     * @see PipelineDiagnostics#describe(Policy[])
+     */
+    public String getDescription() {
+        return description;
+    }
+}
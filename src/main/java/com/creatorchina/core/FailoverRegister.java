@@ -25,7 +25,9 @@
 
 package com.creatorchina.core;
 
+import com.creatorchina.preview.Constants;
 import com.creatorchina.util.NotNull;
+import net.jodah.failsafe.CircuitBreaker;
 import net.jodah.failsafe.Fallback;
 import net.jodah.failsafe.Policy;
 import net.jodah.failsafe.RetryPolicy;
@@ -36,10 +38,14 @@ import net.jodah.failsafe.internal.util.Assert;
 
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
+import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.logging.Level;
 
 /**
  * <BR>This class is the core component of the entire protocol.<BR/>
@@ -57,6 +63,14 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
 
     public static FailoverRegister instance = FallbackRegisterInstance.FALLBACK_REGISTER_INSTANCE;
 
+    private final SingleFlight<Object, S> flights = new SingleFlight<>();
+
+    private PipelineMetrics metrics;
+
+    private ListenerDispatcher dispatcher;
+
+    private ExecutionMode executionMode;
+
     @Override
     List<Policy<R>> doCollect(Policy<R>... t) {
         this.policyCollects.addAll(Arrays.asList(t));
@@ -69,13 +83,13 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
     }
 
     /**
-     * Build default rules and apply default retry processing scenarios
+     * Build default rules and apply default retry processing scenarios.
+     * Every call returns a fresh register, so the shared {@link #instance} is never mutated
+     * and concurrent callers can not see each other's configuration
      * @return
      */
     public FailoverRegister buildPolicy() {
-        this.initialStandardPolicy();
-        this.collect(this.minaFallback.fetchFallback(), retryPolicy);
-        return this;
+        return this.buildPolicy(MinaFallback.of(() -> null));
     }
 
 
@@ -86,15 +100,79 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
      */
     public FailoverRegister buildPolicy(MinaFallback fallback) {
         Assert.notNull(fallback, "Input param for build's fallback is non null...");
-        this.initialStandardPolicy();
-        this.collect(fallback.fetchFallback(), retryPolicy);
-        return this;
+        FailoverRegister register = new FailoverRegister();
+        register.initialStandardPolicy(fallback);
+        register.collect(fallback.fetchFallback(), register.retryPolicy);
+        return register;
+    }
+
+    private void initialStandardPolicy(MinaFallback fallback) {
+        this.retryPolicy = new RetryPolicy();
+        this.safeFailback = new SafeFailback();
+        this.minaFallback = fallback;
+    }
+
+
+    /**
+     * <BR>Compile the current configuration into an immutable {@link FailoverPlan}.<BR/>
+     * <P>The plan owns the policies from now on, so the register should not be configured any further.
+     * Keep the plan and reuse it for every call instead of building a new pipeline each time<P/>
+     *
+     * @return the compiled plan
+     * @see FailoverPlan
+     */
+    public FailoverPlan<S, U> build() {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        return new FailoverPlan<>(renderPolicies(), renderFailback(), hedging, minaFallback.lastKnownGood());
+    }
+
+
+    /**
+     * The collected policies, with the recorders of {@link #withMetrics(String)} inserted
+     */
+    @Override
+    protected Policy[] renderPolicies() {
+        List<Policy<R>> collected = recordedOnce();
+        if (metrics == null) {
+            return collected.toArray(new Policy[collected.size()]);
+        }
+        // [calls, fallback, fallbacks, retry, attempts, ...], the first two collected are the fallback and the retry policy
+        List<Policy<R>> policies = new ArrayList<>(collected.size() + 3);
+        policies.add(metrics.callRecorder());
+        policies.add(collected.get(0));
+        policies.add(metrics.fallbackGate());
+        policies.add(collected.get(1));
+        policies.add(metrics.attemptRecorder());
+        policies.addAll(collected.subList(2, collected.size()));
+        return policies.toArray(new Policy[policies.size()]);
+    }
+
+
+    /**
+     * The failback, timing its executor tasks for {@link #withMetrics(String)}
+     */
+    @Override
+    protected SafeFailback renderFailback() {
+        return metrics == null ? safeFailback : safeFailback.observedBy(metrics);
     }
 
-    private void initialStandardPolicy() {
-        this.retryPolicy = retryPolicy == null ? new RetryPolicy() : retryPolicy;
-        this.safeFailback = safeFailback == null ? new SafeFailback() : safeFailback;
-        this.minaFallback = MinaFallback.of(() -> null);
+
+    /**
+     * The collected policies without the latency recorders of adaptive timeouts that share the histogram of
+     * the hedging, its races already record every first attempt
+     */
+    private List<Policy<R>> recordedOnce() {
+        if (hedging == null) {
+            return policyCollects;
+        }
+        List<Policy<R>> policies = new ArrayList<>(policyCollects);
+        for (Policy<R> policy : policyCollects) {
+            if (policy instanceof AdaptiveTimeout
+                    && ((AdaptiveTimeout) policy).getHistogram() == hedging.getHistogram()) {
+                policies.remove(((AdaptiveTimeout) policy).recorder());
+            }
+        }
+        return policies;
     }
 
 
@@ -162,7 +240,7 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
      */
     public FailoverRegister onRetry(@NotNull CheckedConsumer listener) {
         Assert.notNull(retryPolicy, "Please init this policy~ == > build");
-        retryPolicy.onRetry(listener);
+        retryPolicy.onRetry(dispatched(listener));
         return this;
     }
 
@@ -198,7 +276,7 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
     public FailoverRegister onFailure(@NotNull CheckedConsumer listener) {
         Assert.notNull(retryPolicy, "Please init this policy~ == > build");
         Assert.notNull(listener, "Retry consumer is non null ");
-        this.retryPolicy.onFailure(listener);
+        this.retryPolicy.onFailure(dispatched(listener));
         return this;
     }
 
@@ -219,11 +297,33 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
     public FailoverRegister onFailedAttempt(@NotNull CheckedConsumer listener) {
         Assert.notNull(retryPolicy, "Please init this policy~ == > build");
         Assert.notNull(listener, "Retry consumer is non null ");
-        this.retryPolicy.onFailedAttempt(listener);
+        this.retryPolicy.onFailedAttempt(dispatched(listener));
         return this;
     }
 
 
+    /**
+     * <BR>Call the listeners registered from now on, {@link #onRetry(CheckedConsumer)},
+     * {@link #onFailedAttempt(CheckedConsumer)} and {@link #onFailure(CheckedConsumer)}, on the threads of
+     * the dispatcher {@code name} instead of the execution thread<BR/>
+     * <p>A slow listener then no longer adds to the latency of the retries. The dispatcher is shared by
+     * name, see {@link FailoverRegistry#listenerDispatcher(String, int, int, ListenerDispatcher.Overflow)}
+     * to configure its threads, ring size and overflow<p/>
+     *
+     * @param name dispatcher name
+     * @return this
+     */
+    public FailoverRegister withListenerDispatcher(@NotNull String name) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        this.dispatcher = FailoverRegistry.instance.listenerDispatcher(name);
+        return this;
+    }
+
+    private CheckedConsumer dispatched(CheckedConsumer listener) {
+        return dispatcher == null ? listener : dispatcher.wrap(listener);
+    }
+
+
     /**
      * <BR>Retry only when encountering the specified exception<BR/>
      *
@@ -297,6 +397,247 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
     }
 
 
+    /**
+     * <BR>Only retry while the dependency's retry budget allows it.<BR/>
+     * <p>Retries of all pipelines sharing {@code name} may not exceed {@code percent} of their first
+     * attempts over the sliding {@code window}. When the budget is spent the call stops retrying
+     * and goes straight to the fallback, see {@link RetryBudget}<p/>
+     *
+     * @param name    dependency name the budget is shared by
+     * @param percent retries allowed per hundred first attempts, e.g. 20
+     * @param window  length of the sliding window
+     * @return this
+     */
+    public FailoverRegister withRetryBudget(@NotNull String name, int percent, @NotNull Duration window) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        this.retryPolicy.abortOn(FailoverRejectedException.class);
+        this.collect(FailoverRegistry.instance.retryBudget(name, percent, window));
+        return this;
+    }
+
+
+    /**
+     * <BR>Cap the in-flight executions of the dependency with a limit that adapts to its latency.<BR/>
+     * <p>Attempts over the limit are rejected before they are queued and go straight to the
+     * fallback, the limit is shared by all pipelines using {@code name}, see {@link ConcurrencyLimit}<p/>
+     *
+     * @param name         dependency name the limit is shared by
+     * @param algorithm    {@link ConcurrencyLimit.Algorithm#AIMD} or {@link ConcurrencyLimit.Algorithm#GRADIENT}
+     * @param initialLimit in-flight executions allowed at start
+     * @param maxLimit     upper bound of the limit
+     * @return this
+     */
+    public FailoverRegister withConcurrencyLimit(@NotNull String name, @NotNull ConcurrencyLimit.Algorithm algorithm,
+                                                 int initialLimit, int maxLimit) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        this.retryPolicy.abortOn(FailoverRejectedException.class);
+        this.collect(FailoverRegistry.instance.concurrencyLimit(name, algorithm, initialLimit, maxLimit));
+        return this;
+    }
+
+
+    /**
+     * <BR>Isolate the dependency {@code name} on its own {@code maxConcurrent} threads.<BR/>
+     * <p>At most {@code maxQueue} attempts wait for one of them, the others are rejected before they are
+     * queued and go straight to the fallback, so a slow dependency can not take the threads of the
+     * healthy ones. The bulkhead is shared by all pipelines using {@code name}, see {@link Bulkhead}<p/>
+     *
+     * @param name          dependency name the bulkhead is shared by
+     * @param maxConcurrent attempts running at once
+     * @param maxQueue      attempts waiting for a thread
+     * @return this
+     */
+    public FailoverRegister withBulkhead(@NotNull String name, int maxConcurrent, int maxQueue) {
+        return this.withBulkhead(name, Bulkhead.Isolation.THREAD_POOL, maxConcurrent, maxQueue);
+    }
+
+
+    /**
+     * <BR>Isolate the dependency {@code name} with a bulkhead.<BR/>
+     * <p>{@link Bulkhead.Isolation#THREAD_POOL} runs the attempts on the threads of the bulkhead,
+     * {@link Bulkhead.Isolation#SEMAPHORE} keeps the threads of the pipeline and only caps how many
+     * attempts run at once, which is cheaper for calls that are fast or already asynchronous<p/>
+     *
+     * @param name          dependency name the bulkhead is shared by
+     * @param isolation     own threads or a permit count
+     * @param maxConcurrent attempts running at once
+     * @param maxQueue      attempts waiting for their turn
+     * @return this
+     * @throws IllegalStateException for a thread pool bulkhead after {@link #withExecutionMode(ExecutionMode)}
+     * @see FailoverRegistry#bulkhead(String, Bulkhead.Isolation, int, int)
+     */
+    public FailoverRegister withBulkhead(@NotNull String name, @NotNull Bulkhead.Isolation isolation,
+                                         int maxConcurrent, int maxQueue) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        Assert.state(isolation != Bulkhead.Isolation.THREAD_POOL || executionMode == null,
+                "A thread pool bulkhead runs the attempts on its own threads, it can not be combined with an execution mode ~");
+        Bulkhead bulkhead = FailoverRegistry.instance.bulkhead(name, isolation, maxConcurrent, maxQueue);
+        this.retryPolicy.abortOn(FailoverRejectedException.class);
+        this.collect(bulkhead);
+        if (bulkhead.getIsolation() == Bulkhead.Isolation.THREAD_POOL) {
+            this.safeFailback = new SafeFailback(bulkhead.executor());
+        }
+        return this;
+    }
+
+
+    /**
+     * <BR>Give every attempt a timeout derived from the dependency's recent latency.<BR/>
+     * <p>The deadline is {@code percentile} of the latencies times {@code factor}, clamped to
+     * {@code [min, max]}. An attempt over the deadline is interrupted and fails with
+     * {@link net.jodah.failsafe.TimeoutExceededException}, which is retried like any other failure,
+     * see {@link AdaptiveTimeout}<p/>
+     *
+     * @param name       dependency name, its latency histogram is shared
+     * @param percentile e.g. 99.9
+     * @param factor     head room over the percentile, >= 1
+     * @param min        lower bound of the deadline
+     * @param max        upper bound of the deadline, also used until enough latencies are known
+     * @return this
+     */
+    public FailoverRegister withAdaptiveTimeout(@NotNull String name, double percentile, double factor,
+                                                @NotNull Duration min, @NotNull Duration max) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        AdaptiveTimeout timeout = new AdaptiveTimeout(FailoverRegistry.instance.latencyHistogram(name),
+                percentile, factor, min, max);
+        this.collect(timeout, timeout.recorder());
+        return this;
+    }
+
+
+    /**
+     * <BR>Adaptive timeout of p99.9 x 1.5, clamped to {@code [min, max]}<BR/>
+     *
+     * @param name dependency name, its latency histogram is shared
+     * @param min  lower bound of the deadline
+     * @param max  upper bound of the deadline
+     * @return this
+     * @see #withAdaptiveTimeout(String, double, double, Duration, Duration)
+     */
+    public FailoverRegister withAdaptiveTimeout(@NotNull String name, @NotNull Duration min, @NotNull Duration max) {
+        return this.withAdaptiveTimeout(name, Constants.ADAPTIVE_TIMEOUT_PERCENTILE, Constants.ADAPTIVE_TIMEOUT_FACTOR,
+                min, max);
+    }
+
+
+    /**
+     * <BR>Hedge slow attempts after a fixed delay.<BR/>
+     * <p>When an attempt is still running after {@code delay}, the same method is started once more
+     * and the first success wins, the slower one is cancelled. Only use it for idempotent calls,
+     * see {@link Hedging}<p/>
+     *
+     * @param name      dependency name, its latency histogram is shared
+     * @param delay     how long to wait before sending the hedge
+     * @param maxHedges hedges of this pipeline allowed to run at the same time
+     * @return this
+     */
+    public FailoverRegister withHedging(@NotNull String name, @NotNull Duration delay, int maxHedges) {
+        Assert.notNull(delay, "Input param for delay is non null...");
+        this.hedging = new Hedging(FailoverRegistry.instance.latencyHistogram(name), delay, maxHedges);
+        return this;
+    }
+
+
+    /**
+     * <BR>Hedge the attempts slower than the dependency's recent p95 latency.<BR/>
+     * <p>Until enough latencies have been observed no hedge is sent, see {@link Hedging}<p/>
+     *
+     * @param name      dependency name, its latency histogram is shared
+     * @param maxHedges hedges of this pipeline allowed to run at the same time
+     * @return this
+     */
+    public FailoverRegister withHedging(@NotNull String name, int maxHedges) {
+        this.hedging = new Hedging(FailoverRegistry.instance.latencyHistogram(name), null, maxHedges);
+        return this;
+    }
+
+
+    /**
+     * <BR>Count the calls, attempts, retries, fallbacks, rejections and timeouts of this pipeline,
+     * and time its attempts, fallbacks and executor tasks.<BR/>
+     * <p>The metrics are shared by every pipeline built with {@code name} and exposed as an MBean,
+     * see {@link PipelineMetrics}. They record the plans built and the calls of this register alike,
+     * only the batch calls are not recorded<p/>
+     *
+     * @param name pipeline name
+     * @return this
+     */
+    public FailoverRegister withMetrics(@NotNull String name) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        this.metrics = FailoverRegistry.instance.pipelineMetrics(name);
+        return this;
+    }
+
+
+    /**
+     * <BR>Choose the threads that run every attempt and the continuation after each retry delay.<BR/>
+     * <p>{@link ExecutionMode#VIRTUAL} runs them on virtual threads when the JVM supports it,
+     * so tens of thousands of blocked or waiting executions do not need as many OS threads.
+     * On Java 8 it falls back to the shared pool<p/>
+     *
+     * @param mode execution mode, {@link ExecutionMode#POOLED} by default
+     * @return this
+     * @throws IllegalStateException with a thread pool {@link Bulkhead}, whose threads run the attempts
+     */
+    public FailoverRegister withExecutionMode(@NotNull ExecutionMode mode) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        Assert.notNull(mode, "Execution mode is non null");
+        Assert.state(!isIsolated(),
+                "A thread pool bulkhead runs the attempts on its own threads, it can not be combined with an execution mode ~");
+        this.executionMode = mode;
+        this.safeFailback = new SafeFailback(mode);
+        return this;
+    }
+
+
+    /**
+     * <BR>Guard the dependency {@code name} with its shared sliding window breaker, default configuration<BR/>
+     *
+     * @param name dependency name the breaker is shared by
+     * @return this
+     * @see #withCircuitBreaker(String, BreakerConfig)
+     */
+    public FailoverRegister withCircuitBreaker(@NotNull String name) {
+        return this.withCircuitBreaker(name, null);
+    }
+
+
+    /**
+     * <BR>Guard the dependency {@code name} with its shared {@link SlidingWindowBreaker}.<BR/>
+     * <p>While the breaker is open the calls are rejected before they run and go straight to the
+     * fallback, the retry policy does not retry them. The first pipeline using {@code name}
+     * decides the configuration, see {@link CircuitBreakerRegistry#windowBreaker(String, BreakerConfig)}.
+     * When the registry uses shared memory the breaker is a {@link SharedWindowBreaker} instead<p/>
+     *
+     * @param name   dependency name the breaker is shared by
+     * @param config window and thresholds, null for {@link BreakerConfig#ofDefaults()}
+     * @return this
+     */
+    public FailoverRegister withCircuitBreaker(@NotNull String name, BreakerConfig config) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        this.retryPolicy.abortOn(FailoverRejectedException.class);
+        this.collect(CircuitBreakerRegistry.instance.breaker(name, config));
+        return this;
+    }
+
+
+    /**
+     * <BR>Guard every attempt with a circuit breaker.<BR/>
+     * <p>The breaker is placed inside the retry policy, so an open breaker rejects the attempt
+     * and the failure goes to the fallback. Share one breaker per dependency,
+     * see {@link CircuitBreakerRegistry}<p/>
+     *
+     * @param circuitBreaker the breaker to apply
+     * @return this
+     */
+    public FailoverRegister withCircuitBreaker(@NotNull CircuitBreaker circuitBreaker) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        Assert.notNull(circuitBreaker, "Circuit breaker is non null");
+        this.collect(circuitBreaker);
+        return this;
+    }
+
+
     /**
      *
      * @param invoke  The method you need to pass in
@@ -308,9 +649,138 @@ public class FailoverRegister<S, R, U> extends AbstractFailoverPolicy<S, R, U> {
     public CompletableFuture<S> assemblyFailover(CheckedSupplier<U> invoke, Boolean isAsync) {
         return this.registerFailoverHandler(invoke, isAsync == null ? false : isAsync);
     }
-}
 
 
+    /**
+     * <BR>Failover for a method that is already asynchronous, e.g. Unirest's asStringAsync.<BR/>
+     * <p>Each attempt only calls the method and chains on the returned stage, retry delays
+     * are scheduled instead of slept, so no thread is pinned while a remote call is in flight<p/>
+     *
+     * @param invoke returns the stage of one attempt
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> assemblyFailoverStage(@NotNull CheckedSupplier<? extends CompletionStage<U>> invoke) {
+        Assert.notNull(invoke, "Input method is non null");
+        return this.registerFailoverStageHandler(invoke);
+    }
+
+
+    /**
+     * <BR>Run the method on the calling thread and return its result directly.<BR/>
+     * <p>No executor is involved on the way: the first attempt runs inline, and the caller only
+     * waits when a retry delay is actually configured. Prefer {@link FailoverPlan#execute(CheckedSupplier)}
+     * for calls that repeat<p/>
+     *
+     * @param invoke The method you need to pass in
+     * @return the result of the method, or of the fallback
+     * @throws net.jodah.failsafe.FailsafeException if the last failure is checked and not handled by the fallback
+     */
+    public S execute(@NotNull CheckedSupplier<U> invoke) {
+        Assert.notNull(invoke, "Input method is non null");
+        return this.registerFailoverHandlerMethod(invoke);
+    }
+
+
+    /**
+     * <BR>Coalesced {@link #assemblyFailover(CheckedSupplier, Boolean)}.<BR/>
+     * <p>While a call with an equal {@code key} is running through this register, no new execution
+     * is started and every caller gets its result or fallback, see {@link SingleFlight}<p/>
+     *
+     * @param key     identifies the request, e.g. the URL
+     * @param invoke  The method you need to pass in
+     * @param isAsync Whether to get the return value of the method asynchronously.
+     * @return CompletableFuture<S>
+     */
+    public CompletableFuture<S> assemblyFailover(@NotNull Object key, @NotNull CheckedSupplier<U> invoke, Boolean isAsync) {
+        Assert.notNull(invoke, "Input method is non null");
+        if (minaFallback.lastKnownGood() != null) {
+            CompletableFuture<S> served = staleWhileRevalidate(key, invoke);
+            if (isAsync != null && isAsync) {
+                return served;
+            }
+            try {
+                return CompletableFuture.completedFuture(served.join());
+            } catch (Exception e) {
+                //ignore
+                logger.log(Level.WARNING, "Current method execution failed" + e.getMessage());
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        if (isAsync != null && isAsync) {
+            return flights.execute(key, () -> this.registerFailoverHandler(invoke, true));
+        }
+        try {
+            return CompletableFuture.completedFuture(flights.join(key, () -> this.registerFailoverHandlerMethod(invoke)));
+        } catch (Exception e) {
+            //ignore
+            logger.log(Level.WARNING, "Current method execution failed" + e.getMessage());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
 
+    /**
+     * <BR>Coalesced {@link #execute(CheckedSupplier)}, the callers arriving while a call with an equal
+     * {@code key} runs wait for its result<BR/>
+     *
+     * @param key    identifies the request, e.g. the URL
+     * @param invoke The method you need to pass in
+     * @return the result of the method, or of the fallback
+     */
+    public S execute(@NotNull Object key, @NotNull CheckedSupplier<U> invoke) {
+        Assert.notNull(invoke, "Input method is non null");
+        if (minaFallback.lastKnownGood() != null) {
+            // The stale value is served while the refresh keeps running, so the caller can not run it
+            try {
+                return staleWhileRevalidate(key, invoke).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        return flights.join(key, () -> this.registerFailoverHandlerMethod(invoke));
+    }
 
 
+    /**
+     * <BR>Coalesced stale-while-revalidate of {@link MinaFallback#ofLastKnownGood(int, Duration)},
+     * the same handling as the keyed calls of {@link FailoverPlan}<BR/>
+     */
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<S> staleWhileRevalidate(Object key, CheckedSupplier<U> invoke) {
+        LastKnownGood<Object, S> lastKnownGood = minaFallback.lastKnownGood();
+        return flights.execute(key, () -> lastKnownGood.serve(key, invoke,
+                method -> this.registerFailoverHandler(method, true),
+                () -> FailoverPlan.isCircuitOpen(policyCollects.toArray(new Policy[policyCollects.size()]))));
+    }
+
+
+    /**
+     * <BR>Failover for a bulk call that only retries the keys that failed.<BR/>
+     * <p>The bulk call gets the keys, every key missing from the returned map or mapped to null is
+     * failed, and the next retry sends only those keys, so the batches shrink. The keys that never
+     * succeed get the value of the fallback, per key. A bulk call that throws fails all its keys<p/>
+     * <pre>
+     * CompletableFuture&lt;Map&lt;Long, User&gt;&gt; users = FailoverRegister.instance
+     *         .buildPolicy(MinaFallback.of(() -&gt; User.UNKNOWN))
+     *         .withMaxAttempts(3)
+     *         .assemblyFailoverBatch(ids, batch -&gt; userService.findByIds(batch));
+     * </pre>
+     *
+     * @param keys     the keys to look up
+     * @param bulkCall looks up a list of keys
+     * @return CompletableFuture of a value for every key
+     * @see FailoverPlan#getBatchAsync(List, Function)
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> CompletableFuture<Map<K, V>> assemblyFailoverBatch(@NotNull List<K> keys,
+                                                                     @NotNull Function<List<K>, Map<K, V>> bulkCall) {
+        Assert.notNull(retryPolicy, "Please init this policy~ == > build");
+        BatchFailover<K, V> batch = new BatchFailover<>(keys, bulkCall);
+        Policy[] retries = policyCollects.stream()
+                .filter(policy -> !(policy instanceof Fallback))
+                .toArray(Policy[]::new);
+        return ((CompletableFuture<Map<K, V>>) safeFailback.compile(retries).getAsync(batch::attempt))
+                .handle((results, failure) -> batch.complete(failure, minaFallback.fetchFallback(),
+                        minaFallback.lastKnownGood()));
+    }
+}
@@ -0,0 +1,460 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.internal.util.Assert;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * @author jack.liang
+ * @date 2026-10-18
+ * <BR>
+ * Registry of compiled {@link FailoverPlan}s, one per dependency name<p>
+ * Like {@link CircuitBreakerRegistry}, a plan should be shared by all code that talks to the same dependency.
+ * The pipeline (retry, fallback, breaker and executor) is built once on the first request for a name and
+ * the cached instance is returned on every later call, so the hot path never allocates configuration objects.
+ * Reads are lock-free and creation is atomic: the spec is evaluated at most once per name.
+ * <p/>
+ * <BR/>
+ * <pre>
+ * FailoverPlan plan = FailoverRegistry.instance.getOrCreate("payments", () -&gt; FailoverRegister.instance
+ *         .buildPolicy()
+ *         .withMaxAttempts(3)
+ *         .build());
+ * </pre>
+ */
+public class FailoverRegistry {
+
+    private static final Logger logger = Logger.getGlobal();
+
+    public static FailoverRegistry instance = new FailoverRegistry();
+
+    private final Map<String, FailoverPlan> concurrentPlanMap = new ConcurrentHashMap<>();
+
+    private final Map<String, RetryBudget> concurrentBudgetMap = new ConcurrentHashMap<>();
+
+    private final Map<String, ConcurrencyLimit> concurrentLimitMap = new ConcurrentHashMap<>();
+
+    private final Map<String, LatencyHistogram> concurrentHistogramMap = new ConcurrentHashMap<>();
+
+    private final Map<String, PipelineMetrics> concurrentMetricsMap = new ConcurrentHashMap<>();
+
+    private final Map<String, ListenerDispatcher> concurrentDispatcherMap = new ConcurrentHashMap<>();
+
+    private final Map<String, Bulkhead> concurrentBulkheadMap = new ConcurrentHashMap<>();
+
+    private final Map<String, Consumer<RetryBudget>> pendingBudgetRestores = new ConcurrentHashMap<>();
+
+    private final Map<String, Consumer<LatencyHistogram>> pendingHistogramRestores = new ConcurrentHashMap<>();
+
+    private volatile AsyncLogHandler asyncLogHandler;
+
+    /**
+     * Returns the {@link Map} with registered plans.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, FailoverPlan> getConcurrentPlanMap() {
+        return concurrentPlanMap;
+    }
+
+
+    /**
+     * Returns the plan registered under {@code name}, or null if there is none
+     *
+     * @param name dependency name
+     * @return the cached plan
+     */
+    @SuppressWarnings("unchecked")
+    public <S, U> FailoverPlan<S, U> get(final String name) {
+        Utils.hasText(name, "Name for failover plan needs to be set");
+        return concurrentPlanMap.get(name);
+    }
+
+
+    /**
+     * <BR>Returns the plan cached for {@code name}, building it from {@code spec} on first use<BR/>
+     *
+     * @param name dependency name
+     * @param spec builds the plan, called at most once per name
+     * @return the cached plan
+     */
+    @SuppressWarnings("unchecked")
+    public <S, U> FailoverPlan<S, U> getOrCreate(final String name, final Supplier<FailoverPlan<S, U>> spec) {
+        Utils.hasText(name, "Name for failover plan needs to be set");
+        final FailoverPlan plan = concurrentPlanMap.get(name);
+        if (plan != null) {
+            return plan;
+        }
+        Assert.notNull(spec, "Spec for failover plan is non null");
+        return concurrentPlanMap.computeIfAbsent(name, key -> {
+            final FailoverPlan<S, U> created = Assert.notNull(spec.get(), "Spec returned no plan for " + key);
+            logger.log(Level.INFO, "Failover plan {0} built: {1}", new Object[]{key, created.getDescription()});
+            return created;
+        });
+    }
+
+
+    /**
+     * Drop the plan of {@code name}, the next {@link #getOrCreate} builds a new one
+     *
+     * @param name dependency name
+     * @return the removed plan, or null
+     */
+    @SuppressWarnings("unchecked")
+    public <S, U> FailoverPlan<S, U> remove(final String name) {
+        Utils.hasText(name, "Name for failover plan needs to be set");
+        return concurrentPlanMap.remove(name);
+    }
+
+    /**
+     * <BR>Returns the retry budget shared by every pipeline of the dependency {@code name}.
+     * The first caller decides the configuration<BR/>
+     *
+     * @param name    dependency name
+     * @param percent retries allowed per hundred first attempts
+     * @param window  length of the sliding window
+     * @return the shared budget
+     */
+    @SuppressWarnings("unchecked")
+    public <R> RetryBudget<R> retryBudget(final String name, final int percent, final Duration window) {
+        Utils.hasText(name, "Name for retry budget needs to be set");
+        final RetryBudget budget = concurrentBudgetMap.get(name);
+        if (budget != null) {
+            return budget;
+        }
+        return concurrentBudgetMap.computeIfAbsent(name, key -> restored(new RetryBudget(percent, window),
+                pendingBudgetRestores.remove(key)));
+    }
+
+    /**
+     * <BR>Apply {@code restore} to the retry budget {@code name} now if it exists,
+     * or when it is created, so the configuration stays with the code creating it<BR/>
+     *
+     * @return true if it waits for the budget to be created
+     */
+    boolean restoreRetryBudget(final String name, final Consumer<RetryBudget> restore) {
+        pendingBudgetRestores.put(name, restore);
+        final RetryBudget budget = concurrentBudgetMap.get(name);
+        if (budget != null && pendingBudgetRestores.remove(name, restore)) {
+            restore.accept(budget);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@link Map} with registered retry budgets.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, RetryBudget> getConcurrentBudgetMap() {
+        return concurrentBudgetMap;
+    }
+
+    /**
+     * <BR>Returns the concurrency limit shared by every pipeline of the dependency {@code name}.
+     * The first caller decides the configuration<BR/>
+     *
+     * @param name         dependency name
+     * @param algorithm    how the limit adapts to the round-trip time
+     * @param initialLimit in-flight executions allowed before any attempt completed
+     * @param maxLimit     upper bound of the limit
+     * @return the shared limit
+     */
+    @SuppressWarnings("unchecked")
+    public <R> ConcurrencyLimit<R> concurrencyLimit(final String name, final ConcurrencyLimit.Algorithm algorithm,
+                                                    final int initialLimit, final int maxLimit) {
+        Utils.hasText(name, "Name for concurrency limit needs to be set");
+        final ConcurrencyLimit limit = concurrentLimitMap.get(name);
+        if (limit != null) {
+            return limit;
+        }
+        return concurrentLimitMap.computeIfAbsent(name, key -> new ConcurrencyLimit(algorithm, initialLimit, maxLimit));
+    }
+
+    /**
+     * Returns the {@link Map} with registered concurrency limits.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, ConcurrencyLimit> getConcurrentLimitMap() {
+        return concurrentLimitMap;
+    }
+
+    /**
+     * <BR>Returns the bulkhead of the dependency {@code name}, registering its MBean on first use.
+     * The first caller decides the configuration<BR/>
+     *
+     * @param name          dependency name
+     * @param isolation     own threads, or a permit count on the threads of the pipeline
+     * @param maxConcurrent attempts running at once
+     * @param maxQueue      attempts waiting for their turn
+     * @return the shared bulkhead
+     */
+    @SuppressWarnings("unchecked")
+    public <R> Bulkhead<R> bulkhead(final String name, final Bulkhead.Isolation isolation, final int maxConcurrent,
+                                    final int maxQueue) {
+        Utils.hasText(name, "Name for bulkhead needs to be set");
+        final Bulkhead bulkhead = concurrentBulkheadMap.get(name);
+        if (bulkhead != null) {
+            return bulkhead;
+        }
+        return concurrentBulkheadMap.computeIfAbsent(name, key -> {
+            final Bulkhead created = new Bulkhead(key, isolation, maxConcurrent, maxQueue);
+            try {
+                final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                final ObjectName objectName = bulkheadObjectName(key);
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(created, objectName);
+                }
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to register the MBean of bulkhead: " + key, e);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Returns the {@link Map} with registered bulkheads.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, Bulkhead> getConcurrentBulkheadMap() {
+        return concurrentBulkheadMap;
+    }
+
+    /**
+     * The JMX name of the bulkhead of dependency {@code name}
+     */
+    public static ObjectName bulkheadObjectName(final String name) throws JMException {
+        return new ObjectName("com.creatorchina.failover:type=Bulkhead,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * <BR>Returns the listener dispatcher {@code name}, with one listener thread, a ring of
+     * {@link Constants#LISTENER_DISPATCH_CAPACITY} events and {@link ListenerDispatcher.Overflow#DROP}
+     * unless it was created with another configuration before<BR/>
+     *
+     * @param name dispatcher name
+     * @return the shared dispatcher
+     */
+    public ListenerDispatcher listenerDispatcher(final String name) {
+        return listenerDispatcher(name, 1, Constants.LISTENER_DISPATCH_CAPACITY, ListenerDispatcher.Overflow.DROP);
+    }
+
+    /**
+     * <BR>Returns the listener dispatcher {@code name}. The first caller decides the configuration<BR/>
+     *
+     * @param name     dispatcher name
+     * @param threads  listener threads
+     * @param capacity events waiting for the listener threads at most
+     * @param overflow what an execution does when that many are waiting
+     * @return the shared dispatcher
+     */
+    public ListenerDispatcher listenerDispatcher(final String name, final int threads, final int capacity,
+                                                 final ListenerDispatcher.Overflow overflow) {
+        Utils.hasText(name, "Name for listener dispatcher needs to be set");
+        final ListenerDispatcher dispatcher = concurrentDispatcherMap.get(name);
+        if (dispatcher != null) {
+            return dispatcher;
+        }
+        return concurrentDispatcherMap.computeIfAbsent(name, key -> new ListenerDispatcher(key, threads, capacity,
+                overflow));
+    }
+
+    /**
+     * Returns the {@link Map} with registered listener dispatchers.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, ListenerDispatcher> getConcurrentDispatcherMap() {
+        return concurrentDispatcherMap;
+    }
+
+    /**
+     * <BR>Returns the latency histogram of the dependency {@code name}, over the last
+     * {@link Constants#LATENCY_WINDOW_SECONDS} seconds<BR/>
+     *
+     * @param name dependency name
+     * @return the shared histogram
+     */
+    public LatencyHistogram latencyHistogram(final String name) {
+        Utils.hasText(name, "Name for latency histogram needs to be set");
+        final LatencyHistogram histogram = concurrentHistogramMap.get(name);
+        if (histogram != null) {
+            return histogram;
+        }
+        return concurrentHistogramMap.computeIfAbsent(name, key -> restored(
+                new LatencyHistogram(Duration.ofSeconds(Constants.LATENCY_WINDOW_SECONDS)), pendingHistogramRestores.remove(key)));
+    }
+
+    /**
+     * Apply {@code restore} to the latency histogram {@code name} now if it exists, or when it is created
+     *
+     * @return true if it waits for the histogram to be created
+     */
+    boolean restoreLatencyHistogram(final String name, final Consumer<LatencyHistogram> restore) {
+        pendingHistogramRestores.put(name, restore);
+        final LatencyHistogram histogram = concurrentHistogramMap.get(name);
+        if (histogram != null && pendingHistogramRestores.remove(name, restore)) {
+            restore.accept(histogram);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * <BR>Returns the metrics of the pipeline {@code name}, registering their MBean on first use.
+     * A failed registration is logged, the metrics are still recorded<BR/>
+     *
+     * @param name pipeline name
+     * @return the shared metrics
+     */
+    public PipelineMetrics pipelineMetrics(final String name) {
+        Utils.hasText(name, "Name for pipeline metrics needs to be set");
+        final PipelineMetrics metrics = concurrentMetricsMap.get(name);
+        if (metrics != null) {
+            return metrics;
+        }
+        return concurrentMetricsMap.computeIfAbsent(name, key -> {
+            final PipelineMetrics created = new PipelineMetrics(key);
+            try {
+                final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                final ObjectName objectName = objectName(key);
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(created, objectName);
+                }
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to register the metrics MBean of pipeline: " + key, e);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Returns the {@link Map} with registered pipeline metrics.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, PipelineMetrics> getConcurrentMetricsMap() {
+        return concurrentMetricsMap;
+    }
+
+    /**
+     * The JMX name of the metrics of pipeline {@code name}
+     */
+    public static ObjectName objectName(final String name) throws JMException {
+        return new ObjectName("com.creatorchina.failover:type=Pipeline,name=" + ObjectName.quote(name));
+    }
+
+    private static <T> T restored(final T created, final Consumer<T> restore) {
+        if (restore != null) {
+            restore.accept(created);
+        }
+        return created;
+    }
+
+    /**
+     * Returns the {@link Map} with registered latency histograms.
+     *
+     * @return returns the referenced {@link Map}
+     */
+    public Map<String, LatencyHistogram> getConcurrentHistogramMap() {
+        return concurrentHistogramMap;
+    }
+
+    /**
+     * <BR>Write the records of the failover logger, {@link Logger#getGlobal()}, from a background thread.
+     * Logging never blocks a call, records over the capacity are dropped and counted<BR/>
+     *
+     * @param capacity records waiting to be written, 0 for {@link Constants#ASYNC_LOG_CAPACITY}
+     * @return the installed handler
+     */
+    public synchronized AsyncLogHandler useAsyncLogging(final int capacity) {
+        Utils.isNull(asyncLogHandler, "Async logging is used already");
+        asyncLogHandler = AsyncLogHandler.install(logger, capacity);
+        return asyncLogHandler;
+    }
+
+    /**
+     * The handler installed by {@link #useAsyncLogging(int)}, or null
+     */
+    public AsyncLogHandler getAsyncLogHandler() {
+        return asyncLogHandler;
+    }
+
+    @PreDestroy
+    public void destroy() throws Exception {
+        concurrentPlanMap.clear();
+        concurrentBudgetMap.clear();
+        concurrentLimitMap.clear();
+        concurrentHistogramMap.clear();
+        pendingBudgetRestores.clear();
+        pendingHistogramRestores.clear();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (String name : concurrentMetricsMap.keySet()) {
+            try {
+                server.unregisterMBean(objectName(name));
+            } catch (JMException e) {
+                //ignore an MBean unregistered by someone else
+            }
+        }
+        concurrentMetricsMap.clear();
+        for (Map.Entry<String, Bulkhead> entry : concurrentBulkheadMap.entrySet()) {
+            entry.getValue().shutdown();
+            try {
+                server.unregisterMBean(bulkheadObjectName(entry.getKey()));
+            } catch (JMException e) {
+                //ignore an MBean unregistered by someone else
+            }
+        }
+        concurrentBulkheadMap.clear();
+        for (ListenerDispatcher dispatcher : concurrentDispatcherMap.values()) {
+            dispatcher.close();
+        }
+        concurrentDispatcherMap.clear();
+        synchronized (this) {
+            if (asyncLogHandler != null) {
+                asyncLogHandler.uninstall();
+                asyncLogHandler = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.creatorchina.core;
+/**
+ * <BR>Raised when a policy refuses to run an attempt, e.g. an exhausted retry budget.
+ * Retries abort on it, so the call goes straight to the fallback<BR/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ **/
+public class FailoverRejectedException extends RuntimeException {
+
+    public FailoverRejectedException() {
+        super();
+    }
+
+    public FailoverRejectedException(String s) {
+        super(s);
+    }
+
+    public FailoverRejectedException(String s, Throwable throwable) {
+        super(s, throwable);
+    }
+
+    /**
+     * For rejections raised on every call, which can skip filling in the stack trace
+     */
+    public FailoverRejectedException(String s, boolean writableStackTrace) {
+        super(s, null, false, writableStackTrace);
+    }
+}
@@ -0,0 +1,338 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.internal.util.Assert;
+import net.jodah.failsafe.util.concurrent.Scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <BR>A hashed timing wheel that holds the pending retry wakeups of every pipeline.<BR/>
+ * <P>Scheduling only appends to a lock-free queue, and one daemon thread moves the
+ * entries into wheel buckets and expires a whole bucket per tick, so inserting and expiring
+ * are both O(1) no matter how many calls are waiting. An expired entry is handed to the
+ * executor of its pipeline, the wheel thread itself only runs an entry the executor rejects,
+ * so that its caller still completes.
+ * Delays are rounded up to the tick, {@link Constants#WHEEL_TICK_MILLIS} by default.<P/>
+ * <P>{@link SafeFailback} plugs the shared wheel into every Failsafe executor through
+ * {@link #scheduler(Executor)}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class HashedWheelTimer {
+
+    private final long tickNanos;
+
+    private final int mask;
+
+    private final Bucket[] wheel;
+
+    private final Queue<WheelTimeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile long startTime;
+
+    private volatile boolean stopped;
+
+    public HashedWheelTimer(long tick, TimeUnit unit, int ticksPerWheel) {
+        Assert.isTrue(tick > 0, "Tick must > 0 ~");
+        Assert.isTrue(ticksPerWheel > 0 && (ticksPerWheel & (ticksPerWheel - 1)) == 0,
+                "Ticks per wheel must be a power of two ~");
+        this.tickNanos = unit.toNanos(tick);
+        this.mask = ticksPerWheel - 1;
+        this.wheel = new Bucket[ticksPerWheel];
+        for (int i = 0; i < ticksPerWheel; i++) {
+            wheel[i] = new Bucket();
+        }
+    }
+
+    static class HashedWheelTimerInstance {
+        private static final HashedWheelTimer SHARED_TIMER = new HashedWheelTimer(
+                Constants.WHEEL_TICK_MILLIS, TimeUnit.MILLISECONDS, Constants.WHEEL_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * The wheel shared by all {@link FailoverRegister} pipelines
+     */
+    public static HashedWheelTimer shared() {
+        return HashedWheelTimerInstance.SHARED_TIMER;
+    }
+
+    /**
+     * <BR>Returns a Failsafe scheduler that waits on this wheel and runs on {@code executor}.
+     * A task without delay is handed to the executor right away<BR/>
+     *
+     * @param executor runs the expired tasks
+     * @return Scheduler
+     */
+    public Scheduler scheduler(Executor executor) {
+        return scheduler(executor, null);
+    }
+
+    /**
+     * <BR>Like {@link #scheduler(Executor)}, and tells {@code listener} how long every task waited in
+     * the executor's queue and how long it ran. The timings are kept in the task itself<BR/>
+     *
+     * @param executor runs the expired tasks
+     * @param listener told about every task that ran, may be null
+     * @return Scheduler
+     */
+    public Scheduler scheduler(Executor executor, TaskListener listener) {
+        Assert.notNull(executor, "Executor is non null");
+        return (callable, delay, unit) -> schedule(callable, delay, unit, executor, listener);
+    }
+
+    /**
+     * Told about the tasks a {@link #scheduler(Executor, TaskListener)} ran
+     */
+    public interface TaskListener {
+
+        /**
+         * @param queueNanos time between handing the task to the executor and the task starting
+         * @param runNanos   time the task ran
+         */
+        void onTaskRun(long queueNanos, long runNanos);
+    }
+
+    /**
+     * <BR>Run {@code callable} on {@code executor} after the delay.<BR/>
+     * The returned future cancels the wakeup, or interrupts the task once it is running.
+     * A task without delay the executor rejects is not run, the rejection is thrown. A task the executor
+     * rejects once its delay passed runs on the wheel thread instead, since nobody is left to tell.
+     * A Failsafe pipeline gets there only for a retry wakeup, the retried attempt then fails to schedule
+     * its own task and the call completes exceptionally instead of waiting forever
+     *
+     * @throws RejectedExecutionException if the task has no delay and the executor rejects it
+     */
+    public ScheduledFuture<Object> schedule(Callable<?> callable, long delay, TimeUnit unit, Executor executor) {
+        return schedule(callable, delay, unit, executor, null);
+    }
+
+    private ScheduledFuture<Object> schedule(Callable<?> callable, long delay, TimeUnit unit, Executor executor,
+                                             TaskListener listener) {
+        Assert.notNull(callable, "Callable is non null");
+        long delayNanos = unit.toNanos(delay);
+        WheelTimeout timeout = new WheelTimeout(callable, executor, System.nanoTime() + delayNanos, listener);
+        if (delayNanos <= 0) {
+            timeout.executor.execute(timeout.dispatched());
+            return timeout;
+        }
+        if (stopped) {
+            throw new RejectedExecutionException("The wheel timer has been stopped");
+        }
+        start();
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Number of wakeups handed over but not yet moved into the wheel
+     */
+    public int pendingCount() {
+        return pendingTimeouts.size();
+    }
+
+    /**
+     * Stop the wheel thread, wakeups that are still pending never fire
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private void start() {
+        if (started.get() || !started.compareAndSet(false, true)) {
+            return;
+        }
+        startTime = System.nanoTime();
+        Thread worker = new Thread(this::run, "failover-wheel-timer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (!stopped) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleepNanos;
+            while ((sleepNanos = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, sleepNanos);
+                if (stopped) {
+                    return;
+                }
+            }
+            transferPendingTimeouts(tick);
+            wheel[(int) (tick & mask)].expire();
+            tick++;
+        }
+    }
+
+    private void transferPendingTimeouts(long tick) {
+        WheelTimeout timeout;
+        while ((timeout = pendingTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long calculated = (timeout.deadline - startTime + tickNanos - 1) / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            wheel[(int) (Math.max(calculated, tick) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Only ever touched by the wheel thread
+     */
+    private static final class Bucket {
+
+        private WheelTimeout head;
+
+        private WheelTimeout tail;
+
+        void add(WheelTimeout timeout) {
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            WheelTimeout timeout = head;
+            while (timeout != null) {
+                WheelTimeout next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.dispatch();
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private void remove(WheelTimeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+
+    /**
+     * A pending wakeup, and the task itself once it is handed to the executor
+     */
+    private static final class WheelTimeout extends FutureTask<Object> implements ScheduledFuture<Object> {
+
+        private final Executor executor;
+
+        private final long deadline;
+
+        private final TaskListener listener;
+
+        private long dispatchedNanos;
+
+        private long remainingRounds;
+
+        private WheelTimeout prev;
+
+        private WheelTimeout next;
+
+        @SuppressWarnings("unchecked")
+        WheelTimeout(Callable<?> callable, Executor executor, long deadline, TaskListener listener) {
+            super((Callable<Object>) callable);
+            this.executor = executor;
+            this.deadline = deadline;
+            this.listener = listener;
+        }
+
+        WheelTimeout dispatched() {
+            if (listener != null) {
+                dispatchedNanos = System.nanoTime();
+            }
+            return this;
+        }
+
+        /**
+         * Called by the wheel thread, which runs the task itself if the executor is gone
+         */
+        void dispatch() {
+            try {
+                executor.execute(dispatched());
+            } catch (RejectedExecutionException e) {
+                run();
+            }
+        }
+
+        @Override
+        public void run() {
+            if (listener == null) {
+                super.run();
+                return;
+            }
+            long startNanos = System.nanoTime();
+            try {
+                super.run();
+            } finally {
+                listener.onTaskRun(startNanos - dispatchedNanos, System.nanoTime() - startNanos);
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return other == this ? 0 : Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+    }
+}
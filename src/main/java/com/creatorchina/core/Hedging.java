@@ -0,0 +1,308 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.function.CheckedSupplier;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>Hedged requests for idempotent calls.<BR/>
+ * <P>If an attempt has not completed after the hedging delay, the same supplier is started a second
+ * time and whichever succeeds first wins, the other one is cancelled. The delay is either fixed or the
+ * {@link Constants#HEDGING_PERCENTILE}th percentile of the dependency's recent latency, so only the slowest
+ * few percent of the calls are hedged. Until {@link Constants#HEDGING_MIN_SAMPLES} latencies are known no
+ * hedge is sent. At most {@code maxHedges} hedges of the plan run at the same time, above that a slow
+ * attempt is simply waited for.<P/>
+ * <P>A hedge is one attempt as seen by the retry policy: a failure only counts once both the attempt and
+ * its hedge failed. Hedge timers live on the shared {@link HashedWheelTimer}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class Hedging {
+
+    private final LatencyHistogram histogram;
+
+    private final Duration delay;
+
+    private final LatencyHistogram.Quantile quantile;
+
+    private final int maxHedges;
+
+    private final AtomicInteger hedgesInFlight = new AtomicInteger();
+
+    private final LongAdder hedges = new LongAdder();
+
+    /**
+     * @param histogram latencies of the dependency, the first attempt of every race is recorded
+     * @param delay     fixed hedging delay, or null to follow the observed percentile
+     * @param maxHedges hedges allowed to run at the same time
+     */
+    public Hedging(LatencyHistogram histogram, Duration delay, int maxHedges) {
+        Assert.notNull(histogram, "Histogram is non null");
+        Assert.isTrue(delay == null || !delay.isNegative(), "Delay must >= 0 ~");
+        Assert.isTrue(maxHedges > 0, "Max hedges must > 0 ~");
+        this.histogram = histogram;
+        this.delay = delay;
+        this.quantile = histogram.quantile(Constants.HEDGING_PERCENTILE, Constants.HEDGING_MIN_SAMPLES);
+        this.maxHedges = maxHedges;
+    }
+
+    /**
+     * The current hedging delay in nanoseconds, or -1 while the latency is still unknown
+     */
+    public long delayNanos() {
+        if (delay != null) {
+            return delay.toNanos();
+        }
+        return quantile.nanos();
+    }
+
+    /**
+     * <BR>Race a blocking supplier against its hedge, both run on {@code executor}<BR/>
+     *
+     * @param supplier one attempt
+     * @param executor runs the attempt and the hedge
+     * @return completes with the first success, or the last failure
+     */
+    public <U> CompletableFuture<U> race(CheckedSupplier<U> supplier, ExecutorService executor) {
+        Race<U> race = new Race<>();
+        race.attach(executor.submit(() -> race.run(supplier, true)), true);
+        long delayNanos = delayNanos();
+        if (delayNanos >= 0) {
+            race.attach(HashedWheelTimer.shared().schedule(() -> {
+                if (race.tryHedge()) {
+                    try {
+                        race.run(supplier, false);
+                    } finally {
+                        hedgesInFlight.decrementAndGet();
+                    }
+                }
+                return null;
+            }, delayNanos, TimeUnit.NANOSECONDS, executor), false);
+        }
+        return race;
+    }
+
+    /**
+     * <BR>Race an asynchronous supplier against its hedge, nothing blocks while they are pending<BR/>
+     *
+     * @param supplier returns the stage of one attempt
+     * @param executor calls the supplier of the hedge
+     * @return completes with the first success, or the last failure
+     */
+    public <U> CompletableFuture<U> raceStage(CheckedSupplier<? extends CompletionStage<U>> supplier, Executor executor) {
+        Race<U> race = new Race<>();
+        race.attach(race.accept(supplier, true), true);
+        long delayNanos = delayNanos();
+        if (delayNanos >= 0) {
+            race.attach(HashedWheelTimer.shared().schedule(() -> {
+                if (race.tryHedge()) {
+                    CompletableFuture<U> stage = race.accept(supplier, false);
+                    stage.whenComplete((u, t) -> hedgesInFlight.decrementAndGet());
+                    race.attach(stage, false);
+                }
+                return null;
+            }, delayNanos, TimeUnit.NANOSECONDS, executor), false);
+        }
+        return race;
+    }
+
+    /**
+     * <BR>A supplier that races {@code supplier} and waits for the winner on the calling thread<BR/>
+     */
+    public <U> CheckedSupplier<U> blocking(CheckedSupplier<U> supplier, ExecutorService executor) {
+        return () -> {
+            CompletableFuture<U> race = race(supplier, executor);
+            try {
+                return race.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            } catch (InterruptedException e) {
+                race.cancel(true);
+                throw e;
+            }
+        };
+    }
+
+    /**
+     * Hedges running right now
+     */
+    public int getHedgesInFlight() {
+        return hedgesInFlight.get();
+    }
+
+    /**
+     * Hedges started so far
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    public LatencyHistogram getHistogram() {
+        return histogram;
+    }
+
+    public int getMaxHedges() {
+        return maxHedges;
+    }
+
+    /**
+     * The attempt and its hedge of one call, completes with the first success
+     */
+    private final class Race<U> extends CompletableFuture<U> {
+
+        private final long startNanos = System.nanoTime();
+
+        private int launched = 1;
+
+        private int failures;
+
+        private boolean primaryDone;
+
+        private boolean hedgeDone;
+
+        private volatile Future<?> primary;
+
+        private volatile Future<?> hedge;
+
+        private Race() {
+            whenComplete((u, t) -> cancelLosers());
+        }
+
+        void attach(Future<?> future, boolean isPrimary) {
+            if (isPrimary) {
+                primary = future;
+            } else {
+                hedge = future;
+            }
+            if (isDone()) {
+                cancelLosers();
+            }
+        }
+
+        synchronized boolean tryHedge() {
+            if (isDone() || failures >= launched) {
+                return false;
+            }
+            if (hedgesInFlight.incrementAndGet() > maxHedges) {
+                hedgesInFlight.decrementAndGet();
+                return false;
+            }
+            hedges.increment();
+            launched++;
+            return true;
+        }
+
+        void run(CheckedSupplier<U> supplier, boolean isPrimary) {
+            try {
+                onSuccess(supplier.get(), isPrimary);
+            } catch (Throwable t) {
+                onFailure(t, isPrimary);
+            }
+        }
+
+        CompletableFuture<U> accept(CheckedSupplier<? extends CompletionStage<U>> supplier, boolean isPrimary) {
+            CompletableFuture<U> stage;
+            try {
+                stage = supplier.get().toCompletableFuture();
+            } catch (Throwable t) {
+                stage = new CompletableFuture<>();
+                stage.completeExceptionally(t);
+            }
+            stage.whenComplete((u, t) -> {
+                if (t == null) {
+                    onSuccess(u, isPrimary);
+                } else {
+                    onFailure(t instanceof CompletionException && t.getCause() != null
+                            ? t.getCause() : t, isPrimary);
+                }
+            });
+            return stage;
+        }
+
+        private void onSuccess(U result, boolean isPrimary) {
+            synchronized (this) {
+                finish(isPrimary);
+            }
+            complete(result);
+        }
+
+        private void onFailure(Throwable failure, boolean isPrimary) {
+            synchronized (this) {
+                finish(isPrimary);
+                if (++failures < launched) {
+                    return;
+                }
+            }
+            completeExceptionally(failure);
+        }
+
+        private void finish(boolean isPrimary) {
+            if (!isPrimary) {
+                hedgeDone = true;
+            } else if (!primaryDone) {
+                primaryDone = true;
+                histogram.record(System.nanoTime() - startNanos);
+            }
+        }
+
+        /**
+         * Cancels the attempts still running, never the one that is completing the race
+         */
+        private void cancelLosers() {
+            boolean cancelPrimary;
+            boolean cancelHedge;
+            synchronized (this) {
+                cancelPrimary = !primaryDone;
+                cancelHedge = !hedgeDone;
+                // A primary beaten by its hedge took at least this long
+                finish(true);
+            }
+            Future<?> p = primary;
+            Future<?> h = hedge;
+            if (p != null && cancelPrimary) {
+                p.cancel(true);
+            }
+            if (h != null && cancelHedge) {
+                h.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.CircuitBreakerOpenException;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.TimeoutExceededException;
+
+import java.util.function.Consumer;
+
+/**
+ * <BR>The Java Flight Recorder events of the pipelines.<BR/>
+ * <P>Only {@link JfrSupport} touches this class, and only when the {@code jdk.jfr} API is there<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+final class JfrEvents {
+
+    private static final String CATEGORY = "Failover";
+
+    private static final Policy<Object> ATTEMPT_POLICY = new Policy<Object>() {
+        @Override
+        public PolicyExecutor toExecutor(AbstractExecution execution) {
+            return new AttemptExecutor(this, execution);
+        }
+    };
+
+    private static final Policy<Object> FALLBACK_POLICY = new Policy<Object>() {
+        @Override
+        public PolicyExecutor toExecutor(AbstractExecution execution) {
+            return new FallbackExecutor(this, execution);
+        }
+    };
+
+    private JfrEvents() {
+    }
+
+    /**
+     * Tell {@code onChange} whether a recording is running, now and whenever a recording changes state
+     */
+    static void listen(Consumer<Boolean> onChange) {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                onChange.accept(isRunning(recorder));
+            }
+
+            @Override
+            public void recordingStateChanged(Recording recording) {
+                onChange.accept(isRunning(FlightRecorder.getFlightRecorder()));
+            }
+        });
+    }
+
+    private static boolean isRunning(FlightRecorder recorder) {
+        for (Recording recording : recorder.getRecordings()) {
+            if (recording.getState() == RecordingState.RUNNING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <U> Policy<U> attemptPolicy() {
+        return (Policy<U>) ATTEMPT_POLICY;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <U> Policy<U> fallbackPolicy() {
+        return (Policy<U>) FALLBACK_POLICY;
+    }
+
+    static void breakerTransition(String name, String from, String to) {
+        BreakerTransitionEvent event = new BreakerTransitionEvent();
+        if (event.shouldCommit()) {
+            event.breaker = name;
+            event.from = from;
+            event.to = to;
+            event.commit();
+        }
+    }
+
+    private static String outcomeOf(Throwable failure) {
+        if (failure == null) {
+            return "success";
+        }
+        if (failure instanceof TimeoutExceededException) {
+            return "timeout";
+        }
+        if (failure instanceof FailoverRejectedException || failure instanceof CircuitBreakerOpenException) {
+            return "rejected";
+        }
+        return "failure";
+    }
+
+    /**
+     * Right inside the retry policy: one event per attempt, and one per wait between two attempts
+     */
+    private static final class AttemptExecutor extends PolicyExecutor<Policy<Object>> {
+
+        private AttemptEvent attempt;
+
+        private RetryDelayEvent delay;
+
+        AttemptExecutor(Policy<Object> policy, AbstractExecution execution) {
+            super(policy, execution);
+        }
+
+        @Override
+        protected ExecutionResult preExecute() {
+            int number = execution.getAttemptCount() + 1;
+            if (delay != null) {
+                delay.end();
+                if (delay.shouldCommit()) {
+                    delay.attempt = number;
+                    delay.commit();
+                }
+                delay = null;
+            }
+            attempt = new AttemptEvent();
+            attempt.attempt = number;
+            attempt.begin();
+            return null;
+        }
+
+        @Override
+        protected void onSuccess(ExecutionResult result) {
+            commit(null);
+        }
+
+        @Override
+        protected ExecutionResult onFailure(ExecutionResult result) {
+            commit(result.getFailure());
+            delay = new RetryDelayEvent();
+            delay.failure = result.getFailure() == null ? null : result.getFailure().getClass().getName();
+            delay.begin();
+            return result;
+        }
+
+        private void commit(Throwable failure) {
+            AttemptEvent event = attempt;
+            attempt = null;
+            if (event == null) {
+                return;
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.outcome = outcomeOf(failure);
+                event.failure = failure == null ? null : failure.getClass().getName();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Right inside the fallback: a failure here is a call the fallback answers
+     */
+    private static final class FallbackExecutor extends PolicyExecutor<Policy<Object>> {
+
+        FallbackExecutor(Policy<Object> policy, AbstractExecution execution) {
+            super(policy, execution);
+        }
+
+        @Override
+        protected ExecutionResult onFailure(ExecutionResult result) {
+            FallbackEvent event = new FallbackEvent();
+            if (event.shouldCommit()) {
+                event.attempts = execution.getAttemptCount();
+                event.failure = result.getFailure() == null ? null : result.getFailure().getClass().getName();
+                event.commit();
+            }
+            return result;
+        }
+    }
+
+    @Name("com.creatorchina.failover.Attempt")
+    @Label("Attempt")
+    @Category(CATEGORY)
+    @Description("One attempt of a failover pipeline")
+    @StackTrace(false)
+    static final class AttemptEvent extends Event {
+
+        @Label("Attempt Number")
+        int attempt;
+
+        @Label("Outcome")
+        String outcome;
+
+        @Label("Failure")
+        String failure;
+    }
+
+    @Name("com.creatorchina.failover.RetryDelay")
+    @Label("Retry Delay")
+    @Category(CATEGORY)
+    @Description("The wait between a failed attempt and its retry")
+    @StackTrace(false)
+    static final class RetryDelayEvent extends Event {
+
+        @Label("Next Attempt Number")
+        int attempt;
+
+        @Label("Failure")
+        String failure;
+    }
+
+    @Name("com.creatorchina.failover.Fallback")
+    @Label("Fallback")
+    @Category(CATEGORY)
+    @Description("A call answered by the fallback")
+    static final class FallbackEvent extends Event {
+
+        @Label("Attempts")
+        int attempts;
+
+        @Label("Failure")
+        String failure;
+    }
+
+    @Name("com.creatorchina.failover.BreakerTransition")
+    @Label("Breaker Transition")
+    @Category(CATEGORY)
+    @Description("A circuit breaker changed state")
+    @StackTrace(false)
+    static final class BreakerTransitionEvent extends Event {
+
+        @Label("Breaker")
+        String breaker;
+
+        @Label("From")
+        String from;
+
+        @Label("To")
+        String to;
+    }
+}
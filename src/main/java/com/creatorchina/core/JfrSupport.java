@@ -0,0 +1,135 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import net.jodah.failsafe.Fallback;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.RetryPolicy;
+
+import java.util.Arrays;
+
+/**
+ * <BR>Java Flight Recorder events of the pipelines, emitted only while a recording is running.<BR/>
+ * <P>The events themselves live in {@link JfrEvents}, which is only loaded when the JVM has the
+ * {@code jdk.jfr} API, so the jar still runs on a JVM without it. While nothing records, the cost
+ * on the call path is one volatile read: the plans keep a second compiled chain with two extra
+ * policies, one right inside the fallback and one right inside the retry policy, and only use it
+ * while a recording is running.<P/>
+ * <P>Events, all in the Failover category: Attempt (duration, attempt number, outcome, failure),
+ * Retry Delay (the actual wait before a retry), Fallback (failure and attempts that led to it)
+ * and Breaker Transition (breaker name, old and new state)<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+final class JfrSupport {
+
+    private static final boolean AVAILABLE = hasFlightRecorder();
+
+    private static volatile boolean recording;
+
+    static {
+        if (AVAILABLE) {
+            JfrEvents.listen(running -> recording = running);
+        }
+    }
+
+    private JfrSupport() {
+    }
+
+    private static boolean hasFlightRecorder() {
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            return true;
+        } catch (Throwable e) {
+            //ignore ClassNotFoundException on JVMs without the jdk.jfr API
+            return false;
+        }
+    }
+
+    /**
+     * Whether the JVM can record failover events at all
+     */
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+
+    /**
+     * Whether a recording is running, the events are only worth building then
+     */
+    static boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * <BR>The chain with the event policies inserted right inside the first fallback and right inside
+     * the first retry policy, or {@code policies} itself when nothing records<BR/>
+     */
+    @SuppressWarnings("unchecked")
+    static <U> Policy<U>[] instrument(Policy<U>[] policies) {
+        if (!recording) {
+            return policies;
+        }
+        return instrumented(policies);
+    }
+
+    /**
+     * The chain with the event policies, whether a recording is running or not. Null without JFR
+     */
+    @SuppressWarnings("unchecked")
+    static <U> Policy<U>[] instrumented(Policy<U>[] policies) {
+        if (!AVAILABLE) {
+            return null;
+        }
+        Policy<U>[] instrumented = new Policy[policies.length + 2];
+        boolean fallback = false;
+        boolean retry = false;
+        int i = 0;
+        for (Policy<U> policy : policies) {
+            instrumented[i++] = policy;
+            if (!fallback && policy instanceof Fallback) {
+                fallback = true;
+                instrumented[i++] = JfrEvents.fallbackPolicy();
+            } else if (!retry && policy instanceof RetryPolicy) {
+                retry = true;
+                instrumented[i++] = JfrEvents.attemptPolicy();
+            }
+        }
+        if (!retry) {
+            instrumented[i++] = JfrEvents.attemptPolicy();
+        }
+        return i == instrumented.length ? instrumented : Arrays.copyOf(instrumented, i);
+    }
+
+    /**
+     * A breaker of {@code name} moved from {@code from} to {@code to}, from may be null when unknown
+     */
+    static void breakerTransition(String name, SlidingWindowBreaker.State from, SlidingWindowBreaker.State to) {
+        if (recording) {
+            JfrEvents.breakerTransition(name, from == null ? null : from.name(), to.name());
+        }
+    }
+}
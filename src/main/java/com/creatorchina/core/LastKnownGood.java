@@ -0,0 +1,249 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import net.jodah.failsafe.function.CheckedSupplier;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * <BR>A bounded cache of the last good result of every key.<BR/>
+ * <P>Keyed calls of a {@link FailoverPlan} or a {@link FailoverRegister} record every result of their method here. When such a call
+ * fails, or the circuit breaker of the plan is open, the value of the key is served at once while the
+ * pipeline keeps running in the background to refresh it. As long as a refresh of a key is running,
+ * further calls get the value straight away and do not start another execution.<P/>
+ * <P>Entries expire {@code ttl} after they were stored, a value older than that is never served.
+ * Above {@code maxSize} keys the oldest keys are evicted first. Nothing takes a lock<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ * @see MinaFallback#ofLastKnownGood(int, Duration)
+ */
+public final class LastKnownGood<K, V> {
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final Queue<K> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    public LastKnownGood(int maxSize, Duration ttl) {
+        Assert.isTrue(maxSize > 0, "Max size must > 0 ~");
+        Assert.notNull(ttl, "Ttl is non null");
+        Assert.isTrue(!ttl.isNegative() && !ttl.isZero(), "Ttl must > 0 ~");
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Record the good value of {@code key}
+     */
+    public void put(K key, V value) {
+        Assert.notNull(key, "Key is non null");
+        if (value == null) {
+            return;
+        }
+        if (entries.put(key, new Entry<>(value, System.nanoTime())) == null) {
+            insertionOrder.offer(key);
+            while (entries.size() > maxSize) {
+                K eldest = insertionOrder.poll();
+                if (eldest == null) {
+                    break;
+                }
+                entries.remove(eldest);
+            }
+        }
+    }
+
+    /**
+     * <BR>The last good value of {@code key}<BR/>
+     *
+     * @return the value, or null if there is none or it expired
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        // Expired entries are left in place, so the map and the eviction queue always hold the same keys
+        return System.nanoTime() - entry.storedNanos > ttlNanos ? null : entry.value;
+    }
+
+    /**
+     * <BR>Mark {@code key} as being refreshed<BR/>
+     *
+     * @return false if a refresh of the key is already running
+     */
+    boolean tryStartRefresh(K key) {
+        return refreshing.add(key);
+    }
+
+    void endRefresh(K key) {
+        refreshing.remove(key);
+    }
+
+    /**
+     * <BR>Serve the last good value of {@code key} as soon as {@code pipeline} can not deliver a fresh one,
+     * and let it refresh the value in the background<BR/>
+     * <p>Without a refresh of the key running, {@code invoke} is run through {@code pipeline}. The stale value
+     * is served at once when an attempt fails or {@code circuitOpen} is true, otherwise the fresh result is
+     * served and stored. While a refresh runs, the other callers get the stale value straight away<p/>
+     *
+     * @param key         identifies the request
+     * @param invoke      the method
+     * @param pipeline    runs the method with its retries and fallback
+     * @param circuitOpen whether a circuit breaker of the pipeline is open
+     * @return completes with the stale or the fresh value
+     */
+    <U> CompletableFuture<V> serve(K key, CheckedSupplier<U> invoke,
+                                   Function<CheckedSupplier<U>, CompletableFuture<V>> pipeline,
+                                   BooleanSupplier circuitOpen) {
+        return serve(key, circuitOpen, refresh -> pipeline.apply(() -> {
+            try {
+                U result = invoke.get();
+                refresh.succeeded.set(true);
+                return result;
+            } catch (Throwable t) {
+                refresh.failed();
+                throw t;
+            }
+        }));
+    }
+
+    /**
+     * <BR>{@link #serve} for a method that returns the stage of its attempt, an attempt
+     * fails or succeeds when its stage does<BR/>
+     */
+    <U> CompletableFuture<V> serveStage(K key, CheckedSupplier<? extends CompletionStage<U>> invoke,
+                                        Function<CheckedSupplier<CompletionStage<U>>, CompletableFuture<V>> pipeline,
+                                        BooleanSupplier circuitOpen) {
+        return serve(key, circuitOpen, refresh -> pipeline.apply(() -> {
+            CompletionStage<U> stage;
+            try {
+                stage = invoke.get();
+            } catch (Throwable t) {
+                refresh.failed();
+                throw t;
+            }
+            return stage.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    refresh.failed();
+                } else {
+                    refresh.succeeded.set(true);
+                }
+            });
+        }));
+    }
+
+    private CompletableFuture<V> serve(K key, BooleanSupplier circuitOpen,
+                                       Function<Refresh, CompletableFuture<V>> pipeline) {
+        V stale = get(key);
+        boolean refresher = tryStartRefresh(key);
+        if (!refresher && stale != null) {
+            return CompletableFuture.completedFuture(stale);
+        }
+        Refresh refresh = new Refresh(stale);
+        CompletableFuture<V> served = refresh.served;
+        CompletableFuture<V> refreshed = pipeline.apply(refresh);
+        if (stale != null && circuitOpen.getAsBoolean()) {
+            served.complete(stale);
+        }
+        refreshed.whenComplete((result, failure) -> {
+            if (refresher) {
+                endRefresh(key);
+            }
+            if (failure != null) {
+                served.completeExceptionally(failure);
+            } else if (refresh.succeeded.get()) {
+                put(key, result);
+                served.complete(result);
+            } else {
+                // The fallback answered
+                served.complete(stale != null ? stale : result);
+            }
+        });
+        return served;
+    }
+
+    /**
+     * Keys currently cached, expired ones included until they are read or evicted
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * One refresh of a key, the attempts tell it how they went
+     */
+    private final class Refresh {
+
+        private final V stale;
+
+        private final CompletableFuture<V> served = new CompletableFuture<>();
+
+        private final AtomicBoolean succeeded = new AtomicBoolean();
+
+        private Refresh(V stale) {
+            this.stale = stale;
+        }
+
+        /**
+         * An attempt failed, the caller gets the stale value at once while the retries go on
+         */
+        void failed() {
+            if (stale != null) {
+                served.complete(stale);
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long storedNanos;
+
+        private Entry(V value, long storedNanos) {
+            this.value = value;
+            this.storedNanos = storedNanos;
+        }
+    }
+}
@@ -0,0 +1,320 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>A lock-free latency histogram of one dependency.<BR/>
+ * <P>Latencies are counted in microseconds into log-linear buckets, 16 buckets per power of two,
+ * so every percentile is exact to about 6% over the whole range from one microsecond to hours,
+ * with a fixed footprint and no allocation per sample. Recording is a single atomic increment.<P/>
+ * <P>The histogram only describes the recent past: like {@link RetryBudget} it is a ring of
+ * {@link Constants#LATENCY_HISTOGRAM_SLOTS} time slots over the window, and a slot is cleared when
+ * it is reused. Histograms are shared per dependency name, see {@link FailoverRegistry#latencyHistogram(String)}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+    private static final long REFRESH_NANOS = TimeUnit.MILLISECONDS.toNanos(Constants.LATENCY_QUANTILE_REFRESH_MILLIS);
+
+    private final long slotNanos;
+
+    private final Slot[] slots;
+
+    public LatencyHistogram(Duration window) {
+        Assert.notNull(window, "Window is non null");
+        Assert.isTrue(window.toNanos() >= Constants.LATENCY_HISTOGRAM_SLOTS, "Window is too small ~");
+        this.slotNanos = window.toNanos() / Constants.LATENCY_HISTOGRAM_SLOTS;
+        this.slots = new Slot[Constants.LATENCY_HISTOGRAM_SLOTS];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Count one latency
+     *
+     * @param nanos latency in nanoseconds
+     */
+    public void record(long nanos) {
+        Slot slot = current();
+        slot.counts.incrementAndGet(indexOf(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos))));
+        slot.count.increment();
+    }
+
+    public Duration getWindow() {
+        return Duration.ofNanos(slotNanos * slots.length);
+    }
+
+    /**
+     * Samples counted in the current window
+     */
+    public long count() {
+        long epoch = System.nanoTime() / slotNanos;
+        long count = 0;
+        for (Slot slot : slots) {
+            if (epoch - slot.epoch.get() < slots.length) {
+                count += slot.count.sum();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * <BR>The latency under which {@code percentile} percent of the samples of the window fall<BR/>
+     *
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return the latency in nanoseconds, rounded up to its bucket, or 0 if there is no sample
+     */
+    public long valueAt(double percentile) {
+        Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must between 0 and 100 ~");
+        long[] counts = snapshot();
+        long total = 0;
+        for (long c : counts) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return TimeUnit.MICROSECONDS.toNanos(highestValueOf(i));
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * <BR>A percentile of this histogram for the hot path of a policy<BR/>
+     * <p>{@link #valueAt(double)} walks every bucket of every slot, so the value is only recomputed every
+     * {@link Constants#LATENCY_QUANTILE_REFRESH_MILLIS} by the caller that finds it expired, all other
+     * callers read the cached value without allocating<p/>
+     *
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @param minSamples samples the window needs before the percentile is trusted
+     * @return the cached percentile
+     */
+    public Quantile quantile(double percentile, long minSamples) {
+        Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must between 0 and 100 ~");
+        return new Quantile(percentile, minSamples);
+    }
+
+    /**
+     * The bucket counts of the current window, indexed like {@link #indexOf(long)}
+     */
+    long[] snapshot() {
+        long epoch = System.nanoTime() / slotNanos;
+        long[] counts = new long[BUCKETS];
+        for (Slot slot : slots) {
+            if (epoch - slot.epoch.get() < slots.length) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] += slot.counts.get(i);
+                }
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * The bucket counts of every slot of the current window that holds samples, by the age of the slot
+     * in nanoseconds
+     */
+    Map<Long, long[]> slotSnapshots() {
+        long now = System.nanoTime();
+        long epoch = now / slotNanos;
+        Map<Long, long[]> snapshots = new LinkedHashMap<>();
+        for (Slot slot : slots) {
+            long slotEpoch = slot.epoch.get();
+            if (epoch - slotEpoch < slots.length && slot.count.sum() > 0) {
+                long[] counts = new long[BUCKETS];
+                for (int i = 0; i < BUCKETS; i++) {
+                    counts[i] = slot.counts.get(i);
+                }
+                snapshots.put(now - slotEpoch * slotNanos, counts);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * <BR>Add the bucket counts of a slot of {@link #slotSnapshots()} back to the slot of the same age,
+     * so they age out of the window as if they were never gone<BR/>
+     *
+     * @return false if a slot of that age is no longer in the window
+     */
+    boolean restore(long ageNanos, long[] counts) {
+        Assert.isTrue(counts.length == BUCKETS, "Snapshot of another histogram layout ~");
+        Slot slot = slotAged(ageNanos);
+        if (slot == null) {
+            return false;
+        }
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] > 0) {
+                slot.counts.addAndGet(i, counts[i]);
+                total += counts[i];
+            }
+        }
+        slot.count.add(total);
+        return true;
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_COUNT) {
+            return (int) micros;
+        }
+        int exp = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) (micros >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long highestValueOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exp = index / SUB_COUNT + SUB_BITS - 1;
+        long width = 1L << (exp - SUB_BITS);
+        long lowest = (SUB_COUNT + index % SUB_COUNT) * width;
+        return lowest + width - 1;
+    }
+
+    private Slot current() {
+        long epoch = System.nanoTime() / slotNanos;
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        long seen = slot.epoch.get();
+        if (seen != epoch && slot.epoch.compareAndSet(seen, epoch)) {
+            for (int i = 0; i < BUCKETS; i++) {
+                slot.counts.set(i, 0);
+            }
+            slot.count.reset();
+        }
+        return slot;
+    }
+
+    /**
+     * The slot that held the samples {@code ageNanos} ago, null once it left the window or was reused
+     */
+    private Slot slotAged(long ageNanos) {
+        long now = System.nanoTime();
+        long epoch = (now - Math.max(0, ageNanos)) / slotNanos;
+        if (now / slotNanos - epoch >= slots.length) {
+            return null;
+        }
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        for (;;) {
+            long seen = slot.epoch.get();
+            if (seen == epoch) {
+                return slot;
+            }
+            if (seen > epoch) {
+                return null;
+            }
+            if (slot.epoch.compareAndSet(seen, epoch)) {
+                for (int i = 0; i < BUCKETS; i++) {
+                    slot.counts.set(i, 0);
+                }
+                slot.count.reset();
+                return slot;
+            }
+        }
+    }
+
+    private static final class Slot {
+
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+        private final LongAdder count = new LongAdder();
+    }
+
+    /**
+     * A percentile of the histogram, recomputed at most every {@link Constants#LATENCY_QUANTILE_REFRESH_MILLIS}
+     */
+    public final class Quantile {
+
+        private final double percentile;
+
+        private final long minSamples;
+
+        private final AtomicLong refreshAt = new AtomicLong(System.nanoTime());
+
+        private volatile long nanos = -1;
+
+        private Quantile(double percentile, long minSamples) {
+            this.percentile = percentile;
+            this.minSamples = minSamples;
+        }
+
+        /**
+         * The percentile in nanoseconds, or -1 while the window has fewer than {@code minSamples} samples.
+         * While it is -1 the sample count is checked on every call, so the value is known with the first call
+         * after enough samples were recorded
+         */
+        public long nanos() {
+            long now = System.nanoTime();
+            long at = refreshAt.get();
+            if (now - at >= 0 && refreshAt.compareAndSet(at, now + REFRESH_NANOS)) {
+                if (count() < minSamples) {
+                    nanos = -1;
+                    refreshAt.set(now);
+                } else {
+                    nanos = valueAt(percentile);
+                }
+            }
+            return nanos;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return LatencyHistogram.this;
+        }
+    }
+}
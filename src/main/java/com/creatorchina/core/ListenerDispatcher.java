@@ -0,0 +1,412 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.event.ExecutionAttemptedEvent;
+import net.jodah.failsafe.event.ExecutionCompletedEvent;
+import net.jodah.failsafe.event.ExecutionEvent;
+import net.jodah.failsafe.function.CheckedConsumer;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <BR>Runs execution listeners on its own threads instead of the execution thread.<BR/>
+ * <P>A listener wrapped by {@link #wrap(CheckedConsumer)} only publishes its event: the execution claims a
+ * slot of a preallocated ring with one CAS, writes the listener and the event into it and goes on with the
+ * retry. Failsafe builds its events around the live execution, so the attempt count, start and elapsed time
+ * are copied into the slot as they are when the event is published, and the listener gets an event that
+ * keeps them. The listener threads take the slots in order and call the listeners, so a slow listener delays
+ * other listeners, never an attempt. What happens when the listeners fall a whole ring behind is the
+ * {@link Overflow} of the dispatcher; how far behind they are is reported by {@link #getBacklog()} and
+ * {@link #getLagNanos()}.<P/>
+ * <P>With more than one listener thread, the events of one execution may be seen out of order<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class ListenerDispatcher {
+
+    /**
+     * What an execution does with an event when the ring is full
+     */
+    public enum Overflow {
+        /**
+         * Drop the event and count it, the execution never waits
+         */
+        DROP,
+        /**
+         * Call the listener on the execution thread, as without a dispatcher
+         */
+        CALLER_RUNS,
+        /**
+         * Wait for a free slot
+         */
+        BLOCK
+    }
+
+    private final String name;
+
+    private final Overflow overflow;
+
+    private final int mask;
+
+    private final Slot[] slots;
+
+    /**
+     * Per slot, the position it can be written at, or that position plus one once written
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+
+    private final AtomicLong head = new AtomicLong();
+
+    private final AtomicBoolean idle = new AtomicBoolean();
+
+    private final Thread[] threads;
+
+    private final long idleNanos;
+
+    private final LongAdder dispatched = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder callerRuns = new LongAdder();
+
+    private volatile long lagNanos;
+
+    private volatile boolean closed;
+
+    /**
+     * @param name     names the listener threads
+     * @param threads  listener threads
+     * @param capacity events the ring holds, rounded up to a power of two
+     * @param overflow what an execution does when the ring is full
+     */
+    public ListenerDispatcher(String name, int threads, int capacity, Overflow overflow) {
+        Utils.hasText(name, "Name for listener dispatcher needs to be set");
+        Assert.isTrue(threads > 0, "Listener threads must be positive");
+        Assert.isTrue(capacity > 0, "Capacity of the event ring must be positive");
+        Assert.notNull(overflow, "Overflow is non null");
+        this.name = name;
+        this.overflow = overflow;
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.slots = new Slot[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+            sequences.set(i, i);
+        }
+        this.idleNanos = TimeUnit.MILLISECONDS.toNanos(Constants.LISTENER_DISPATCH_IDLE_MILLIS);
+        this.threads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            this.threads[i] = new Thread(this::dispatchLoop, "failover-listener-" + name + "-" + i);
+            this.threads[i].setDaemon(true);
+            this.threads[i].start();
+        }
+    }
+
+    /**
+     * <BR>The listener to register instead of {@code listener}: it hands the event to this dispatcher<BR/>
+     *
+     * @param listener the listener to call off the execution thread
+     * @return the publishing listener
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CheckedConsumer<T> wrap(CheckedConsumer<T> listener) {
+        Assert.notNull(listener, "Listener is non null");
+        return event -> publish((CheckedConsumer<Object>) listener, event);
+    }
+
+    void publish(CheckedConsumer<Object> listener, Object event) throws Throwable {
+        if (closed) {
+            listener.accept(event);
+            return;
+        }
+        ExecutionEvent execution = event instanceof ExecutionEvent ? (ExecutionEvent) event : null;
+        for (;;) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    Slot slot = slots[index];
+                    slot.listener = listener;
+                    slot.event = event;
+                    slot.publishedNanos = System.nanoTime();
+                    if (execution != null) {
+                        slot.attempts = execution.getAttemptCount();
+                        slot.startTime = execution.getStartTime();
+                        slot.elapsedNanos = slot.publishedNanos - slot.startTime.toNanos();
+                    }
+                    sequences.set(index, position + 1);
+                    if (closed) {
+                        // The listener threads may have drained already, nothing published is left behind
+                        while (dispatchOne()) {
+                            //the caller runs what the listener threads left
+                        }
+                        return;
+                    }
+                    if (idle.get() && idle.compareAndSet(true, false)) {
+                        for (Thread thread : threads) {
+                            LockSupport.unpark(thread);
+                        }
+                    }
+                    return;
+                }
+            } else if (sequence < position) {
+                if (overflow == Overflow.DROP) {
+                    dropped.increment();
+                    return;
+                }
+                if (overflow == Overflow.CALLER_RUNS || closed) {
+                    callerRuns.increment();
+                    listener.accept(event);
+                    return;
+                }
+                Thread.yield();
+            }
+        }
+    }
+
+    private void dispatchLoop() {
+        while (!closed) {
+            if (!dispatchOne()) {
+                idle.set(true);
+                if (!dispatchOne()) {
+                    LockSupport.parkNanos(this, idleNanos);
+                }
+            }
+        }
+        while (dispatchOne()) {
+            //drain what was published before closing
+        }
+    }
+
+    /**
+     * Take the oldest event and call its listener, false when there is none
+     */
+    private boolean dispatchOne() {
+        for (;;) {
+            long position = head.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence != position + 1) {
+                return false;
+            }
+            if (head.compareAndSet(position, position + 1)) {
+                Slot slot = slots[index];
+                CheckedConsumer<Object> listener = slot.listener;
+                Object event = snapshot(slot);
+                long publishedNanos = slot.publishedNanos;
+                slot.listener = null;
+                slot.event = null;
+                slot.startTime = null;
+                sequences.set(index, position + mask + 1);
+                lagNanos = System.nanoTime() - publishedNanos;
+                dispatched.increment();
+                try {
+                    listener.accept(event);
+                } catch (Throwable e) {
+                    //ignore exceptions thrown by listeners, as Failsafe does
+                }
+                return true;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object snapshot(Slot slot) {
+        Object event = slot.event;
+        if (event instanceof ExecutionAttemptedEvent) {
+            ExecutionAttemptedEvent<Object> attempted = (ExecutionAttemptedEvent<Object>) event;
+            return new AttemptedSnapshot(attempted.getLastResult(), attempted.getLastFailure(),
+                    slot.attempts, slot.startTime, slot.elapsedNanos);
+        }
+        if (event instanceof ExecutionCompletedEvent) {
+            ExecutionCompletedEvent<Object> completed = (ExecutionCompletedEvent<Object>) event;
+            return new CompletedSnapshot(completed.getResult(), completed.getFailure(),
+                    slot.attempts, slot.startTime, slot.elapsedNanos);
+        }
+        return event;
+    }
+
+    /**
+     * Stop the listener threads once they called the listeners of the events already published,
+     * later events are dispatched on the execution thread. An event published while closing is
+     * dispatched by whichever of the two gets to it
+     */
+    public void close() {
+        closed = true;
+        for (Thread thread : threads) {
+            LockSupport.unpark(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Events published and not dispatched yet
+     */
+    public long getBacklog() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    /**
+     * How long the last dispatched event waited in the ring
+     */
+    public long getLagNanos() {
+        return lagNanos;
+    }
+
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * Events dropped because the ring was full, with {@link Overflow#DROP}
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Events dispatched on the execution thread because the ring was full, with {@link Overflow#CALLER_RUNS}
+     */
+    public long getCallerRuns() {
+        return callerRuns.sum();
+    }
+
+    /**
+     * A ring entry, reused for every event that passes through it
+     */
+    private static final class Slot {
+
+        private CheckedConsumer<Object> listener;
+
+        private Object event;
+
+        private long publishedNanos;
+
+        private int attempts;
+
+        private Duration startTime;
+
+        private long elapsedNanos;
+    }
+
+    /**
+     * An attempt event that keeps the counts of its attempt, not of the execution going on
+     */
+    private static final class AttemptedSnapshot extends ExecutionAttemptedEvent<Object> {
+
+        private final int attempts;
+
+        private final Duration startTime;
+
+        private final long elapsedNanos;
+
+        AttemptedSnapshot(Object result, Throwable failure, int attempts, Duration startTime, long elapsedNanos) {
+            super(result, failure, null);
+            this.attempts = attempts;
+            this.startTime = startTime;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public int getAttemptCount() {
+            return attempts;
+        }
+
+        @Override
+        public Duration getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public Duration getElapsedTime() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+    }
+
+    /**
+     * A completion event that keeps the counts of its execution as they were on completing
+     */
+    private static final class CompletedSnapshot extends ExecutionCompletedEvent<Object> {
+
+        private final int attempts;
+
+        private final Duration startTime;
+
+        private final long elapsedNanos;
+
+        CompletedSnapshot(Object result, Throwable failure, int attempts, Duration startTime, long elapsedNanos) {
+            super(result, failure, null);
+            this.attempts = attempts;
+            this.startTime = startTime;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public int getAttemptCount() {
+            return attempts;
+        }
+
+        @Override
+        public Duration getStartTime() {
+            return startTime;
+        }
+
+        @Override
+        public Duration getElapsedTime() {
+            return Duration.ofNanos(elapsedNanos);
+        }
+    }
+}
@@ -34,6 +34,7 @@ import net.jodah.failsafe.function.CheckedRunnable;
 import net.jodah.failsafe.function.CheckedSupplier;
 import net.jodah.failsafe.internal.util.Assert;
 
+import java.time.Duration;
 import java.util.Optional;
 import java.util.function.Predicate;
 
@@ -47,6 +48,10 @@ final public class MinaFallback<R> {
 
     private Optional<Fallback> fallback;
 
+    private LastKnownGood lastKnownGood;
+
+    private ListenerDispatcher dispatcher;
+
     static <T, R> CheckedFunction<T, R> toFn(CheckedSupplier<R> supplier) {
         return (t) -> supplier.get();
     }
@@ -72,6 +77,32 @@ final public class MinaFallback<R> {
     }
 
 
+    /**
+     * <BR>Fall back to the last good result of the same key, stale-while-revalidate.<BR/>
+     * <p>The keyed calls of the {@link FailoverPlan} and the {@link FailoverRegister} record their results, and serve the value of the key
+     * as soon as an attempt fails or the circuit breaker is open, while the pipeline refreshes it in the
+     * background. Calls without a key, or keys without a fresh value, fall back to null<p/>
+     *
+     * @param maxSize keys kept at most, the oldest are evicted first
+     * @param ttl     how long a value may be served after it was stored
+     * @return MinaFallback
+     * @see LastKnownGood
+     */
+    public static MinaFallback ofLastKnownGood(int maxSize, @NotNull Duration ttl) {
+        MinaFallback minaFallback = of(() -> null);
+        minaFallback.lastKnownGood = new LastKnownGood<>(maxSize, ttl);
+        return minaFallback;
+    }
+
+
+    /**
+     * The cache of {@link #ofLastKnownGood(int, Duration)}, or null for the other fallbacks
+     */
+    LastKnownGood lastKnownGood() {
+        return lastKnownGood;
+    }
+
+
     /**
      * <BR><P>determine which execution results or failures to handle and how to handle them. By default,
      * policies handle any Exception that is thrown.<P/>
@@ -111,7 +142,20 @@ final public class MinaFallback<R> {
      */
     public MinaFallback onFailure(@NotNull CheckedConsumer listener) {
         Assert.notNull(fallback, "Current fallback is non null~~");
-        fallback.get().onFailure(listener);
+        fallback.get().onFailure(dispatcher == null ? listener : dispatcher.wrap(listener));
+        return this;
+    }
+
+    /**
+     * <BR>Call the listeners registered from now on with {@link #onFailure(CheckedConsumer)} on the threads of
+     * the dispatcher {@code name} instead of the execution thread<BR/>
+     *
+     * @param name dispatcher name
+     * @return MinaFallback
+     * @see FailoverRegistry#listenerDispatcher(String)
+     */
+    public MinaFallback withListenerDispatcher(@NotNull String name) {
+        this.dispatcher = FailoverRegistry.instance.listenerDispatcher(name);
         return this;
     }
 
@@ -0,0 +1,166 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.CircuitBreaker;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.RetryPolicy;
+import net.jodah.failsafe.Timeout;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <BR>Diagnostics of the failover pipelines.<BR/>
+ * <P>A pipeline is described once, when it is built; a call only logs through a {@link RateLimitedLog},
+ * which checks the level and its rate before it builds anything, so a call that is not logged allocates
+ * nothing<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class PipelineDiagnostics {
+
+    private PipelineDiagnostics() {
+    }
+
+    /**
+     * <BR>One line naming the policies from the outermost to the innermost with their main settings,
+     * e.g. {@code Fallback -> RetryPolicy[maxAttempts=3, delay=PT0S] -> Timeout[PT1S]}<BR/>
+     *
+     * @param policies the chain, outermost first
+     * @return the description
+     */
+    public static String describe(Policy<?>... policies) {
+        StringBuilder description = new StringBuilder();
+        for (Policy<?> policy : policies) {
+            if (description.length() > 0) {
+                description.append(" -> ");
+            }
+            description.append(nameOf(policy));
+            if (policy instanceof RetryPolicy) {
+                RetryPolicy<?> retryPolicy = (RetryPolicy<?>) policy;
+                description.append("[maxAttempts=").append(retryPolicy.getMaxAttempts())
+                        .append(", delay=").append(retryPolicy.getDelay()).append(']');
+            } else if (policy instanceof Timeout) {
+                description.append('[').append(((Timeout<?>) policy).getTimeout()).append(']');
+            } else if (policy instanceof CircuitBreaker) {
+                description.append("[delay=").append(((CircuitBreaker<?>) policy).getDelay()).append(']');
+            } else if (policy instanceof SlidingWindowBreaker) {
+                description.append('[').append(((SlidingWindowBreaker<?>) policy).getName()).append(']');
+            } else if (policy instanceof SharedWindowBreaker) {
+                description.append('[').append(((SharedWindowBreaker<?>) policy).getName()).append(']');
+            } else if (policy instanceof Bulkhead) {
+                Bulkhead<?> bulkhead = (Bulkhead<?>) policy;
+                description.append('[').append(bulkhead.getName()).append(", ").append(bulkhead.getIsolation())
+                        .append(", maxConcurrent=").append(bulkhead.getMaxConcurrent())
+                        .append(", maxQueue=").append(bulkhead.getMaxQueue()).append(']');
+            }
+        }
+        return description.toString();
+    }
+
+    /**
+     * Anonymous policies are named after the class that creates them
+     */
+    private static String nameOf(Policy<?> policy) {
+        Class<?> type = policy.getClass();
+        while (type.isAnonymousClass() && type.getEnclosingClass() != null) {
+            type = type.getEnclosingClass();
+        }
+        return type.getSimpleName();
+    }
+
+    /**
+     * A log of at most {@link Constants#DIAGNOSTICS_LOG_PER_SECOND} records per second
+     *
+     * @param logger  where the records go
+     * @param level   level of the records
+     * @param pattern {@link java.text.MessageFormat} pattern, {0} is the parameter of the call and {1}
+     *                the number of records suppressed since the previous one
+     */
+    public static RateLimitedLog rateLimited(Logger logger, Level level, String pattern) {
+        return new RateLimitedLog(logger, level, pattern, Constants.DIAGNOSTICS_LOG_PER_SECOND);
+    }
+
+    /**
+     * <BR>A parameterized log that drops the records over its rate, and counts them<BR/>
+     */
+    public static final class RateLimitedLog {
+
+        private final Logger logger;
+
+        private final Level level;
+
+        private final String pattern;
+
+        private final long intervalNanos;
+
+        private final AtomicLong next = new AtomicLong(System.nanoTime());
+
+        private final LongAdder suppressed = new LongAdder();
+
+        RateLimitedLog(Logger logger, Level level, String pattern, int perSecond) {
+            Assert.notNull(logger, "Logger is non null");
+            Assert.notNull(level, "Level is non null");
+            Utils.hasText(pattern, "Pattern of the log needs to be set");
+            Assert.isTrue(perSecond > 0, "Records per second must be positive");
+            this.logger = logger;
+            this.level = level;
+            this.pattern = pattern;
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / perSecond;
+        }
+
+        /**
+         * Log {@code parameter} unless the level is off or the rate is used up
+         */
+        public void log(Object parameter) {
+            if (!logger.isLoggable(level)) {
+                return;
+            }
+            long now = System.nanoTime();
+            long due = next.get();
+            if (now - due < 0 || !next.compareAndSet(due, now + intervalNanos)) {
+                suppressed.increment();
+                return;
+            }
+            logger.log(level, pattern, new Object[]{parameter, suppressed.sumThenReset()});
+        }
+
+        /**
+         * Records dropped since the last one logged
+         */
+        public long getSuppressed() {
+            return suppressed.sum();
+        }
+    }
+}
@@ -0,0 +1,349 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.CircuitBreakerOpenException;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.TimeoutExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>Counters and latencies of one named pipeline, exposed as a JMX MBean.<BR/>
+ * <P>{@link FailoverRegister#withMetrics(String)} places three small policies around the chain:
+ * one outside the fallback counting the calls, one between the fallback and the retry policy
+ * counting the calls that fell back, and one inside the retry policy timing every attempt. The
+ * tasks run on the pipeline's executor are timed in the wheel timer's task itself, see
+ * {@link HashedWheelTimer#scheduler(java.util.concurrent.Executor, HashedWheelTimer.TaskListener)}.<P/>
+ * <P>Counters are {@link LongAdder}s and latencies go into {@link LatencyHistogram}s, so recording is
+ * a few uncontended increments with no lock and no allocation. Metrics are shared per pipeline
+ * name and registered under {@code com.creatorchina.failover:type=Pipeline,name=<name>},
+ * see {@link FailoverRegistry#pipelineMetrics(String)}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class PipelineMetrics implements PipelineMetricsMBean, HashedWheelTimer.TaskListener {
+
+    /**
+     * Hands the fallback gate of an execution to its call recorder. Failsafe creates the
+     * executors of one execution on one thread, innermost first, so the gate is always set here
+     * when the call recorder of the same execution is created
+     */
+    private static final ThreadLocal<FallbackGate> CURRENT_GATE = new ThreadLocal<>();
+
+    private final String name;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder attempts = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    private final LongAdder rejections = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LatencyHistogram firstAttemptLatency = newHistogram();
+
+    private final LatencyHistogram retryLatency = newHistogram();
+
+    private final LatencyHistogram fallbackLatency = newHistogram();
+
+    private final LatencyHistogram queueWait = newHistogram();
+
+    private final LatencyHistogram runTime = newHistogram();
+
+    private final Policy<Object> callRecorder = new Policy<Object>() {
+        @Override
+        public PolicyExecutor toExecutor(AbstractExecution execution) {
+            FallbackGate gate = CURRENT_GATE.get();
+            CURRENT_GATE.set(null);
+            return new CallRecorder(this, execution, gate);
+        }
+    };
+
+    private final Policy<Object> fallbackGate = new Policy<Object>() {
+        @Override
+        public PolicyExecutor toExecutor(AbstractExecution execution) {
+            FallbackGate gate = new FallbackGate(this, execution);
+            CURRENT_GATE.set(gate);
+            return gate;
+        }
+    };
+
+    private final Policy<Object> attemptRecorder = new Policy<Object>() {
+        @Override
+        public PolicyExecutor toExecutor(AbstractExecution execution) {
+            return new AttemptRecorder(this, execution);
+        }
+    };
+
+    public PipelineMetrics(String name) {
+        Utils.hasText(name, "Name for pipeline metrics needs to be set");
+        this.name = name;
+    }
+
+    private static LatencyHistogram newHistogram() {
+        return new LatencyHistogram(Duration.ofSeconds(Constants.LATENCY_WINDOW_SECONDS));
+    }
+
+    /**
+     * Outermost policy of the pipeline, outside the fallback
+     */
+    @SuppressWarnings("unchecked")
+    <R> Policy<R> callRecorder() {
+        return (Policy<R>) callRecorder;
+    }
+
+    /**
+     * Policy right inside the fallback, its failures are the calls that fall back
+     */
+    @SuppressWarnings("unchecked")
+    <R> Policy<R> fallbackGate() {
+        return (Policy<R>) fallbackGate;
+    }
+
+    /**
+     * Policy right inside the retry policy, run once per attempt
+     */
+    @SuppressWarnings("unchecked")
+    <R> Policy<R> attemptRecorder() {
+        return (Policy<R>) attemptRecorder;
+    }
+
+    @Override
+    public void onTaskRun(long queueNanos, long runNanos) {
+        queueWait.record(queueNanos);
+        runTime.record(runNanos);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    @Override
+    public long getAttempts() {
+        return attempts.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    @Override
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public long getRejections() {
+        return rejections.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public long getFirstAttemptP50Micros() {
+        return micros(firstAttemptLatency, 50);
+    }
+
+    @Override
+    public long getFirstAttemptP99Micros() {
+        return micros(firstAttemptLatency, 99);
+    }
+
+    @Override
+    public long getRetryP99Micros() {
+        return micros(retryLatency, 99);
+    }
+
+    @Override
+    public long getFallbackP99Micros() {
+        return micros(fallbackLatency, 99);
+    }
+
+    @Override
+    public long getQueueWaitP99Micros() {
+        return micros(queueWait, 99);
+    }
+
+    @Override
+    public long getRunTimeP99Micros() {
+        return micros(runTime, 99);
+    }
+
+    @Override
+    public long latencyMicros(String histogram, double percentile) {
+        return micros(histogram(histogram), percentile);
+    }
+
+    /**
+     * @param histogram one of firstAttempt, retry, fallback, queueWait, runTime
+     */
+    public LatencyHistogram histogram(String histogram) {
+        switch (String.valueOf(histogram)) {
+            case "firstAttempt":
+                return firstAttemptLatency;
+            case "retry":
+                return retryLatency;
+            case "fallback":
+                return fallbackLatency;
+            case "queueWait":
+                return queueWait;
+            case "runTime":
+                return runTime;
+            default:
+                throw new IllegalArgumentException("Unknown latency histogram : " + histogram);
+        }
+    }
+
+    private static long micros(LatencyHistogram histogram, double percentile) {
+        return TimeUnit.NANOSECONDS.toMicros(histogram.valueAt(percentile));
+    }
+
+    private final class CallRecorder extends PolicyExecutor<Policy<Object>> {
+
+        private final FallbackGate gate;
+
+        CallRecorder(Policy<Object> policy, AbstractExecution execution, FallbackGate gate) {
+            super(policy, execution);
+            this.gate = gate;
+        }
+
+        @Override
+        protected ExecutionResult preExecute() {
+            calls.increment();
+            return null;
+        }
+
+        @Override
+        protected void onSuccess(ExecutionResult result) {
+            recordFallback();
+        }
+
+        @Override
+        protected ExecutionResult onFailure(ExecutionResult result) {
+            recordFallback();
+            return result;
+        }
+
+        private void recordFallback() {
+            if (gate != null && gate.fallbackNanos != 0) {
+                fallbackLatency.record(System.nanoTime() - gate.fallbackNanos);
+            }
+        }
+    }
+
+    private final class FallbackGate extends PolicyExecutor<Policy<Object>> {
+
+        /**
+         * When the call failed into the fallback, 0 while it did not
+         */
+        private long fallbackNanos;
+
+        FallbackGate(Policy<Object> policy, AbstractExecution execution) {
+            super(policy, execution);
+        }
+
+        @Override
+        protected ExecutionResult onFailure(ExecutionResult result) {
+            fallbacks.increment();
+            fallbackNanos = System.nanoTime();
+            return result;
+        }
+    }
+
+    private final class AttemptRecorder extends PolicyExecutor<Policy<Object>> {
+
+        private long startNanos;
+
+        private boolean retry;
+
+        AttemptRecorder(Policy<Object> policy, AbstractExecution execution) {
+            super(policy, execution);
+        }
+
+        @Override
+        protected ExecutionResult preExecute() {
+            attempts.increment();
+            retry = execution.getAttemptCount() > 0;
+            if (retry) {
+                retries.increment();
+            }
+            startNanos = System.nanoTime();
+            return null;
+        }
+
+        @Override
+        protected void onSuccess(ExecutionResult result) {
+            record();
+        }
+
+        @Override
+        protected ExecutionResult onFailure(ExecutionResult result) {
+            record();
+            failures.increment();
+            Throwable failure = result.getFailure();
+            if (failure instanceof TimeoutExceededException) {
+                timeouts.increment();
+            } else if (failure instanceof FailoverRejectedException || failure instanceof CircuitBreakerOpenException) {
+                rejections.increment();
+            }
+            return result;
+        }
+
+        private void record() {
+            (retry ? retryLatency : firstAttemptLatency).record(System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+/**
+ * <BR>JMX view of the {@link PipelineMetrics} of one pipeline.<BR/>
+ * <P>Counters are totals since the pipeline was created, latencies are in microseconds over the last
+ * {@link com.creatorchina.preview.Constants#LATENCY_WINDOW_SECONDS} seconds<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public interface PipelineMetricsMBean {
+
+    String getName();
+
+    long getCalls();
+
+    long getAttempts();
+
+    long getRetries();
+
+    long getFailures();
+
+    long getFallbacks();
+
+    long getRejections();
+
+    long getTimeouts();
+
+    long getFirstAttemptP50Micros();
+
+    long getFirstAttemptP99Micros();
+
+    long getRetryP99Micros();
+
+    long getFallbackP99Micros();
+
+    long getQueueWaitP99Micros();
+
+    long getRunTimeP99Micros();
+
+    /**
+     * @param histogram  one of firstAttempt, retry, fallback, queueWait, runTime
+     * @param percentile between 0 and 100
+     * @return the latency in microseconds, 0 without samples
+     */
+    long latencyMicros(String histogram, double percentile);
+}
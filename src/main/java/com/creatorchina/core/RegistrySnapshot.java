@@ -0,0 +1,309 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.internal.util.Assert;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <BR>Binary snapshot of the registries, so a restarted process does not start from scratch.<BR/>
+ * <P>The snapshot holds the open state of the {@link SlidingWindowBreaker}s of {@link CircuitBreakerRegistry},
+ * and the window counts of the {@link LatencyHistogram}s and {@link RetryBudget}s of {@link FailoverRegistry}.
+ * A breaker that was open is restored open for the rest of its open duration, so the first calls
+ * after a deploy do not hammer a dependency known to be down, and the adaptive policies have their
+ * percentiles from the first call. The counts are kept per time slot with the age of the slot, and
+ * restored into the slot of the same age, so they age out of the windows like live ones.<P/>
+ * <P>Restoring does not create anything: the state of a name is applied when the code creates
+ * it through the registry, with the configuration of the code. A snapshot older than
+ * {@link Constants#SNAPSHOT_MAX_AGE_MINUTES} is ignored, as is one of another format version, and the
+ * slots of a histogram or budget that fell out of its window by the time it is restored are dropped. The file is replaced atomically, a reader never sees half a
+ * snapshot, and the periodic and final writes are skipped while the registries are empty, so a registry
+ * destroyed first at shutdown does not wipe the last good snapshot. The shared memory breakers outlive the process by themselves, Failsafe
+ * breakers and compact stores are not part of the snapshot.<P/>
+ * <pre>
+ * RegistrySnapshot snapshot = new RegistrySnapshot(Paths.get("/var/lib/app/failover.snapshot"));
+ * snapshot.restore();
+ * snapshot.start(Duration.ofSeconds(30));
+ * </pre>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class RegistrySnapshot {
+
+    private static final Logger logger = Logger.getGlobal();
+
+    private static final int MAGIC = 0x4d4e534e;
+
+    private static final short VERSION = 2;
+
+    private final Path file;
+
+    private ScheduledExecutorService scheduler;
+
+    private Thread shutdownHook;
+
+    public RegistrySnapshot(Path file) {
+        this.file = Utils.notNull(file, "Snapshot file");
+    }
+
+    /**
+     * <BR>Write the registries to the snapshot file<BR/>
+     *
+     * @throws IOException when the file can not be written, the previous snapshot is kept then
+     */
+    public synchronized void write() throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(System.currentTimeMillis());
+
+            Map<String, SlidingWindowBreaker> breakers = CircuitBreakerRegistry.instance.getConcurrentWindowBreakerMap();
+            out.writeInt(breakers.size());
+            for (Map.Entry<String, SlidingWindowBreaker> entry : breakers.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeBoolean(entry.getValue().getState() != SlidingWindowBreaker.State.CLOSED);
+                out.writeLong(entry.getValue().remainingOpenNanos());
+            }
+
+            Map<String, LatencyHistogram> histograms = FailoverRegistry.instance.getConcurrentHistogramMap();
+            out.writeInt(histograms.size());
+            for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+                out.writeUTF(entry.getKey());
+                Map<Long, long[]> slots = entry.getValue().slotSnapshots();
+                out.writeShort(slots.size());
+                for (Map.Entry<Long, long[]> slot : slots.entrySet()) {
+                    long[] counts = slot.getValue();
+                    int used = 0;
+                    for (long count : counts) {
+                        used += count > 0 ? 1 : 0;
+                    }
+                    // Sparse, a histogram of one dependency only uses a few dozen of its buckets
+                    out.writeLong(slot.getKey());
+                    out.writeShort(counts.length);
+                    out.writeShort(used);
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] > 0) {
+                            out.writeShort(i);
+                            out.writeLong(counts[i]);
+                        }
+                    }
+                }
+            }
+
+            Map<String, RetryBudget> budgets = FailoverRegistry.instance.getConcurrentBudgetMap();
+            out.writeInt(budgets.size());
+            for (Map.Entry<String, RetryBudget> entry : budgets.entrySet()) {
+                out.writeUTF(entry.getKey());
+                Map<Long, long[]> slots = entry.getValue().slotSnapshots();
+                out.writeShort(slots.size());
+                for (Map.Entry<Long, long[]> slot : slots.entrySet()) {
+                    out.writeLong(slot.getKey());
+                    out.writeLong(slot.getValue()[0]);
+                    out.writeLong(slot.getValue()[1]);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * <BR>Read the snapshot file and hand its state to the registries<BR/>
+     *
+     * @return number of entries handed to the registries, 0 without a snapshot or with one too old.
+     * A histogram or budget that exists already counts only if one of its slots was still in its window,
+     * one created later counts as it waits for its creation, when its slots may be dropped after all
+     * @throws IOException when the file can not be read or is not a snapshot
+     */
+    public int restore() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a failover snapshot : " + file);
+            }
+            if (in.readShort() != VERSION) {
+                // Written by another release, its layout is not known
+                return 0;
+            }
+            long writtenMillis = in.readLong();
+            long ageMillis = Math.max(0, System.currentTimeMillis() - writtenMillis);
+            if (ageMillis > TimeUnit.MINUTES.toMillis(Constants.SNAPSHOT_MAX_AGE_MINUTES)) {
+                return 0;
+            }
+            long ageNanos = TimeUnit.MILLISECONDS.toNanos(ageMillis);
+            int restored = 0;
+
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                boolean open = in.readBoolean();
+                long remainingNanos = Math.max(0, in.readLong() - ageNanos);
+                if (open) {
+                    // Expired by now it still opens, the first call finds it half open and sends a trial
+                    CircuitBreakerRegistry.instance.restoreWindowBreaker(name, breaker -> breaker.restoreOpen(remainingNanos));
+                    restored++;
+                }
+            }
+
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                Map<Long, long[]> slots = new LinkedHashMap<>();
+                for (int slot = in.readShort(); slot > 0; slot--) {
+                    long slotAgeNanos = in.readLong();
+                    long[] counts = new long[in.readShort()];
+                    for (int used = in.readShort(); used > 0; used--) {
+                        counts[in.readShort()] = in.readLong();
+                    }
+                    slots.put(slotAgeNanos, counts);
+                }
+                AtomicBoolean applied = new AtomicBoolean();
+                // The age is taken when the slots are applied, a pending restore may wait for its histogram
+                boolean pending = FailoverRegistry.instance.restoreLatencyHistogram(name, histogram -> {
+                    long sinceWritten = sinceWrittenNanos(writtenMillis);
+                    for (Map.Entry<Long, long[]> slot : slots.entrySet()) {
+                        if (histogram.restore(slot.getKey() + sinceWritten, slot.getValue())) {
+                            applied.set(true);
+                        }
+                    }
+                });
+                if (pending || applied.get()) {
+                    restored++;
+                }
+            }
+
+            for (int i = in.readInt(); i > 0; i--) {
+                String name = in.readUTF();
+                Map<Long, long[]> slots = new LinkedHashMap<>();
+                for (int slot = in.readShort(); slot > 0; slot--) {
+                    long slotAgeNanos = in.readLong();
+                    slots.put(slotAgeNanos, new long[]{in.readLong(), in.readLong()});
+                }
+                AtomicBoolean applied = new AtomicBoolean();
+                boolean pending = FailoverRegistry.instance.restoreRetryBudget(name, budget -> {
+                    long sinceWritten = sinceWrittenNanos(writtenMillis);
+                    for (Map.Entry<Long, long[]> slot : slots.entrySet()) {
+                        if (budget.restore(slot.getKey() + sinceWritten, slot.getValue()[0], slot.getValue()[1])) {
+                            applied.set(true);
+                        }
+                    }
+                });
+                if (pending || applied.get()) {
+                    restored++;
+                }
+            }
+            return restored;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * <BR>Write a snapshot every {@code period} and once more when the JVM shuts down<BR/>
+     *
+     * @param period time between two snapshots, null for {@link Constants#SNAPSHOT_PERIOD_SECONDS}
+     */
+    public synchronized void start(Duration period) {
+        Assert.state(scheduler == null, "Snapshots are written already");
+        long millis = (period == null ? Duration.ofSeconds(Constants.SNAPSHOT_PERIOD_SECONDS) : period).toMillis();
+        Assert.isTrue(millis > 0, "Snapshot period must > 0 ~");
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "failover-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::writeQuietly, millis, millis, TimeUnit.MILLISECONDS);
+        shutdownHook = new Thread(this::writeQuietly, "failover-snapshot-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Stop the periodic snapshots and write a last one
+     */
+    @PreDestroy
+    public synchronized void destroy() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // The JVM is shutting down, the hook writes the snapshot
+            return;
+        }
+        writeQuietly();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    private static long sinceWrittenNanos(long writtenMillis) {
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, System.currentTimeMillis() - writtenMillis));
+    }
+
+    /**
+     * Nothing is registered before the first call or after the registries were destroyed,
+     * writing then would replace a good snapshot with an empty one
+     */
+    private static boolean isEmpty() {
+        return CircuitBreakerRegistry.instance.getConcurrentWindowBreakerMap().isEmpty()
+                && FailoverRegistry.instance.getConcurrentHistogramMap().isEmpty()
+                && FailoverRegistry.instance.getConcurrentBudgetMap().isEmpty();
+    }
+
+    private void writeQuietly() {
+        if (isEmpty()) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Failed to write failover snapshot: " + file, e);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>A retry budget for one dependency.<BR/>
+ * <P>Retries are only allowed while the retries of the sliding window stay under
+ * {@code percent} of the first attempts of the same window, plus a small floor of
+ * {@link Constants#RETRY_BUDGET_MIN_RETRIES} so that a quiet dependency can still retry.
+ * Once the budget is spent the retry is rejected with {@link FailoverRejectedException},
+ * the retry policy aborts and the call goes straight to the fallback. This keeps
+ * {@code withMaxAttempts} from multiplying the load on a dependency that is already struggling.<P/>
+ * <P>The window is a ring of time slots with striped {@link LongAdder} counters, so recording
+ * never takes a lock. The check is approximate under contention, a few extra retries may pass
+ * at the edge of the budget. Budgets are shared per dependency name, see
+ * {@link FailoverRegistry#retryBudget(String, int, Duration)}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class RetryBudget<R> implements Policy<R> {
+
+    private final int percent;
+
+    private final long slotNanos;
+
+    private final Slot[] slots;
+
+    /**
+     * Thrown for every spent retry, preallocated without a stack trace so a rejection costs nothing
+     */
+    private final FailoverRejectedException rejection;
+
+    public RetryBudget(int percent, Duration window) {
+        Assert.isTrue(percent >= 0, "Percent must >= 0 ~");
+        Assert.notNull(window, "Window is non null");
+        Assert.isTrue(window.toNanos() >= Constants.RETRY_BUDGET_WINDOW_SLOTS, "Window is too small ~");
+        this.percent = percent;
+        this.slotNanos = window.toNanos() / Constants.RETRY_BUDGET_WINDOW_SLOTS;
+        this.slots = new Slot[Constants.RETRY_BUDGET_WINDOW_SLOTS];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        this.rejection = new FailoverRejectedException("Retry budget of " + percent + "% is exhausted", false);
+    }
+
+    /**
+     * Count a first attempt
+     */
+    public void recordRequest() {
+        current().requests.increment();
+    }
+
+    /**
+     * <BR>Take one retry out of the budget<BR/>
+     *
+     * @return false if the budget of the window is spent
+     */
+    public boolean tryAcquireRetry() {
+        long epoch = System.nanoTime() / slotNanos;
+        long requests = 0;
+        long retries = 0;
+        for (Slot slot : slots) {
+            if (epoch - slot.epoch.get() < slots.length) {
+                requests += slot.requests.sum();
+                retries += slot.retries.sum();
+            }
+        }
+        if (retries >= Math.max(Constants.RETRY_BUDGET_MIN_RETRIES, requests * percent / 100)) {
+            return false;
+        }
+        current().retries.increment();
+        return true;
+    }
+
+    public int getPercent() {
+        return percent;
+    }
+
+    public Duration getWindow() {
+        return Duration.ofNanos(slotNanos * slots.length);
+    }
+
+    /**
+     * First attempts counted in the current window
+     */
+    public long getRequests() {
+        return sum(false);
+    }
+
+    /**
+     * Retries granted in the current window
+     */
+    public long getRetries() {
+        return sum(true);
+    }
+
+    /**
+     * The first attempts and retries of every slot of the current window that counted any, by the age
+     * of the slot in nanoseconds
+     */
+    Map<Long, long[]> slotSnapshots() {
+        long now = System.nanoTime();
+        long epoch = now / slotNanos;
+        Map<Long, long[]> snapshots = new LinkedHashMap<>();
+        for (Slot slot : slots) {
+            long slotEpoch = slot.epoch.get();
+            long requests = slot.requests.sum();
+            long retries = slot.retries.sum();
+            if (epoch - slotEpoch < slots.length && (requests > 0 || retries > 0)) {
+                snapshots.put(now - slotEpoch * slotNanos, new long[]{requests, retries});
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * <BR>Add the counts of a slot of {@link #slotSnapshots()} back to the slot of the same age,
+     * so they age out of the window as if they were never gone<BR/>
+     *
+     * @return false if a slot of that age is no longer in the window
+     */
+    boolean restore(long ageNanos, long requests, long retries) {
+        Slot slot = slotAged(ageNanos);
+        if (slot == null) {
+            return false;
+        }
+        slot.requests.add(requests);
+        slot.retries.add(retries);
+        return true;
+    }
+
+    private long sum(boolean retries) {
+        long epoch = System.nanoTime() / slotNanos;
+        long sum = 0;
+        for (Slot slot : slots) {
+            if (epoch - slot.epoch.get() < slots.length) {
+                sum += retries ? slot.retries.sum() : slot.requests.sum();
+            }
+        }
+        return sum;
+    }
+
+    private Slot current() {
+        long epoch = System.nanoTime() / slotNanos;
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        long seen = slot.epoch.get();
+        if (seen != epoch && slot.epoch.compareAndSet(seen, epoch)) {
+            slot.requests.reset();
+            slot.retries.reset();
+        }
+        return slot;
+    }
+
+    /**
+     * The slot that counted {@code ageNanos} ago, null once it left the window or was reused
+     */
+    private Slot slotAged(long ageNanos) {
+        long now = System.nanoTime();
+        long epoch = (now - Math.max(0, ageNanos)) / slotNanos;
+        if (now / slotNanos - epoch >= slots.length) {
+            return null;
+        }
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        for (;;) {
+            long seen = slot.epoch.get();
+            if (seen == epoch) {
+                return slot;
+            }
+            if (seen > epoch) {
+                return null;
+            }
+            if (slot.epoch.compareAndSet(seen, epoch)) {
+                slot.requests.reset();
+                slot.retries.reset();
+                return slot;
+            }
+        }
+    }
+
+    @Override
+    public PolicyExecutor toExecutor(AbstractExecution execution) {
+        return new PolicyExecutor<Policy<R>>(this, execution) {
+            @Override
+            protected ExecutionResult preExecute() {
+                if (execution.getAttemptCount() == 0) {
+                    recordRequest();
+                    return null;
+                }
+                return tryAcquireRetry() ? null : ExecutionResult.failure(rejection);
+            }
+        };
+    }
+
+    private static final class Slot {
+
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+
+        private final LongAdder requests = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+    }
+}
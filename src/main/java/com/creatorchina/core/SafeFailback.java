@@ -26,13 +26,18 @@
 package com.creatorchina.core;
 
 
-import com.creatorchina.json.JSONUtil;
+import com.creatorchina.preview.Constants;
 import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.FailsafeExecutor;
 import net.jodah.failsafe.Policy;
 import net.jodah.failsafe.function.CheckedSupplier;
+import net.jodah.failsafe.util.concurrent.Scheduler;
+import java.lang.reflect.Method;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
@@ -48,9 +53,52 @@ public class SafeFailback<S, U> implements Failover<S, U> {
 
     Logger logger = Logger.getGlobal();
 
-    public static ExecutorService executorService = newFixedThreadPool(2 << Runtime.getRuntime().availableProcessors());
+    private static final PipelineDiagnostics.RateLimitedLog RENDERS = PipelineDiagnostics.rateLimited(Logger.getGlobal(),
+            Level.FINE, "Current method [{0}], {1} similar records suppressed");
+
+    public static ExecutorService executorService = newFixedThreadPool(
+            2 << Math.min(Runtime.getRuntime().availableProcessors(), Constants.EXECUTOR_POOL_MAX_SHIFT));
+
+    private final ExecutorService executor;
+
+    private final Scheduler scheduler;
 
     public SafeFailback() {
+        this(ExecutionMode.POOLED);
+    }
+
+    /**
+     * @param mode which threads run the attempts, see {@link ExecutionMode}
+     */
+    public SafeFailback(ExecutionMode mode) {
+        ExecutorService virtual = mode == ExecutionMode.VIRTUAL ? virtualExecutorService() : null;
+        if (mode == ExecutionMode.VIRTUAL && virtual == null) {
+            logger.log(Level.WARNING, "Virtual threads are not available on this JVM, fall back to the pooled executor");
+        }
+        this.executor = virtual != null ? virtual : executorService;
+        this.scheduler = HashedWheelTimer.shared().scheduler(executor);
+    }
+
+    /**
+     * @param executor the threads that run the attempts, e.g. those of a {@link Bulkhead}
+     */
+    SafeFailback(ExecutorService executor) {
+        this(executor, HashedWheelTimer.shared().scheduler(executor));
+    }
+
+    private SafeFailback(ExecutorService executor, Scheduler scheduler) {
+        this.executor = executor;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Same threads, and every task run on them is timed by {@code listener}
+     */
+    SafeFailback<S, U> observedBy(HashedWheelTimer.TaskListener listener) {
+        return new SafeFailback<>(executor, HashedWheelTimer.shared().scheduler(executor, listener));
+    }
+
+    static {
         AtomicBoolean closed = new AtomicBoolean(false);
         Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
             @Override
@@ -69,6 +117,51 @@ public class SafeFailback<S, U> implements Failover<S, U> {
     }
 
 
+    static class VirtualExecutorInstance {
+        private static final ExecutorService VIRTUAL_EXECUTOR_SERVICE = newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Returns the shared virtual thread per task executor, or null if the JVM has no virtual threads
+     */
+    static ExecutorService virtualExecutorService() {
+        return VirtualExecutorInstance.VIRTUAL_EXECUTOR_SERVICE;
+    }
+
+    /**
+     * Looked up reflectively so that the jar still builds and runs on Java 8
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Throwable e) {
+            //ignore NoSuchMethodException before Java 19 and UnsupportedOperationException while still in preview
+            return null;
+        }
+    }
+
+
+    /**
+     * The threads that run the attempts of this pipeline
+     */
+    ExecutorService executor() {
+        return executor;
+    }
+
+
+    /**
+     * <BR>Freeze the policy chain into a reusable executor.
+     * The returned executor is thread-safe and can be shared by any number of calls<BR/>
+     * @param policys
+     * @return FailsafeExecutor<S>
+     */
+    @SuppressWarnings("unchecked")
+    public FailsafeExecutor<S> compile(Policy<U>... policys) {
+        return (FailsafeExecutor) Failsafe.with(policys).with(scheduler);
+    }
+
+
     /**
      * The retry strategy returns results asynchronously
      * @param supplier
@@ -77,25 +170,44 @@ public class SafeFailback<S, U> implements Failover<S, U> {
      */
     @Override
     public CompletableFuture<S> doRenderAsync(CheckedSupplier supplier, Policy<U>... policys) {
-        if (logger.isLoggable(Level.INFO)){
-            logger.info("Current policy obj array is \t"+ JSONUtil.toJSONString(policys) + "\tcurrent method [doRenderAsync]");
-        }
-        return Failsafe.with(policys).with(executorService).getAsync(supplier);
+        RENDERS.log("doRenderAsync");
+        return Failsafe.with(JfrSupport.instrument(policys)).with(scheduler).getAsync(supplier);
     }
 
     /**
-     * The retry strategy returns results asynchronously
+     * The retry strategy chains on the stage returned by the supplier, nothing blocks while it is pending
+     * @param supplier
+     * @param policys
+     * @return CompletableFuture<S>
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<S> doRenderStageAsync(CheckedSupplier<? extends CompletionStage> supplier, Policy<U>... policys) {
+        return Failsafe.with(JfrSupport.instrument(policys)).with(scheduler).getStageAsync((CheckedSupplier) supplier);
+    }
+
+    /**
+     * The retry strategy returns results synchronously, without leaving the calling thread
      * @param supplier
      * @param policys
      * @return CompletableFuture<S>
      */
     @Override
     public CompletableFuture<S> doRenderSync(CheckedSupplier supplier, Policy<U>... policys) throws ExecutionException, InterruptedException {
-        if (logger.isLoggable(Level.INFO)){
-            logger.info("Current policy obj array is \t"+ JSONUtil.toJSONString(policys) + "\tcurrent method [doRenderSync]");
-        }
-        CompletableFuture<S> async = Failsafe.with(policys).with(executorService).getAsync(supplier);
-        return CompletableFuture.completedFuture(async.get()) ;
+        RENDERS.log("doRenderSync");
+        return CompletableFuture.completedFuture(doRender(supplier, policys));
     }
-}
 
+    /**
+     * The first attempt runs on the calling thread, a retry delay blocks the caller
+     * exactly as long as the policy requires
+     * @param supplier
+     * @param policys
+     * @return S
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public S doRender(CheckedSupplier supplier, Policy<U>... policys) {
+        return (S) Failsafe.with(JfrSupport.instrument(policys)).with(scheduler).get(supplier);
+    }
+}
@@ -26,11 +26,11 @@
 package com.creatorchina.core;
 
 
-import com.creatorchina.json.JSONUtil;
 import net.jodah.failsafe.Failsafe;
 import net.jodah.failsafe.Policy;
 import net.jodah.failsafe.function.CheckedSupplier;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.logging.Level;
@@ -46,6 +46,9 @@ public class SafeFallback<S, U> implements Failover<S, U> {
 
     Logger logger = Logger.getGlobal();
 
+    private static final PipelineDiagnostics.RateLimitedLog RENDERS = PipelineDiagnostics.rateLimited(Logger.getGlobal(),
+            Level.FINE, "Current method [{0}], {1} similar records suppressed");
+
     public static ExecutorService executorService = newFixedThreadPool(10);
 
     /**
@@ -56,25 +59,44 @@ public class SafeFallback<S, U> implements Failover<S, U> {
      */
     @Override
     public CompletableFuture<S> doRenderAsync(CheckedSupplier supplier, Policy<U>... policys) {
-        if (logger.isLoggable(Level.INFO)){
-            logger.info("Current policy obj array is \t"+ JSONUtil.toJSONString(policys) + "\tcurrent method [doRenderAsync]");
-        }
+        RENDERS.log("doRenderAsync");
         return Failsafe.with(policys).with(executorService).getAsync(supplier);
     }
 
     /**
-     * The retry strategy returns results asynchronously
+     * The retry strategy chains on the stage returned by the supplier, nothing blocks while it is pending
+     * @param supplier
+     * @param policys
+     * @return CompletableFuture<S>
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<S> doRenderStageAsync(CheckedSupplier<? extends CompletionStage> supplier, Policy<U>... policys) {
+        return Failsafe.with(policys).with(executorService).getStageAsync((CheckedSupplier) supplier);
+    }
+
+    /**
+     * The retry strategy returns results synchronously, without leaving the calling thread
      * @param supplier
      * @param policys
      * @return CompletableFuture<S>
      */
     @Override
     public CompletableFuture<S> doRenderSync(CheckedSupplier supplier, Policy<U>... policys) throws ExecutionException, InterruptedException {
-        if (logger.isLoggable(Level.INFO)){
-            logger.info("Current policy obj array is \t"+ JSONUtil.toJSONString(policys) + "\tcurrent method [doRenderSync]");
-        }
-        CompletableFuture<S> async = Failsafe.with(policys).with(executorService).getAsync(supplier);
-        return CompletableFuture.completedFuture(async.get()) ;
+        RENDERS.log("doRenderSync");
+        return CompletableFuture.completedFuture(doRender(supplier, policys));
     }
-}
 
+    /**
+     * The first attempt runs on the calling thread, a retry delay blocks the caller
+     * exactly as long as the policy requires
+     * @param supplier
+     * @param policys
+     * @return S
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public S doRender(CheckedSupplier supplier, Policy<U>... policys) {
+        return (S) Failsafe.with(policys).get(supplier);
+    }
+}
@@ -0,0 +1,333 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.preview.Constants;
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <BR>A memory mapped file holding the state of circuit breakers shared by every process on the host.<BR/>
+ * <P>Processes mapping the same file see the same pages, a breaker opened by one process rejects
+ * calls in all of them at once, and the window counts the calls of all of them. The file is a small
+ * header followed by a fixed number of slots of {@value #SLOT_SIZE} bytes, a breaker claims the slot of
+ * the hash of its name with a compare and swap, then updates its state and counters with atomic
+ * instructions on the mapped memory. There is no lock, so a process that dies mid call can not
+ * block the others.<P/>
+ * <P>The mapping stays alive as long as the region or one of its breakers is reachable.<P/>
+ * <P>The mapped memory is reached through {@code sun.misc.Unsafe} of the module {@code jdk.unsupported},
+ * which every JDK from 8 on exports, looked up at runtime. The address of the mapping is read from
+ * {@code java.nio.Buffer#address} the same way, so no {@code --add-exports} or {@code --add-opens} is needed<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ * @see SharedWindowBreaker
+ * @see CircuitBreakerRegistry#useSharedMemory(Path, int)
+ */
+public final class SharedBreakerRegion {
+
+    private static final long MAGIC = 0x4d696e614272656bL;
+
+    private static final int MAGIC_OFFSET = 0;
+
+    private static final int SLOTS_OFFSET = 8;
+
+    private static final int HEADER_SIZE = 64;
+
+    static final int SLOT_SIZE = 128;
+
+    /**
+     * The memory access methods of {@code sun.misc.Unsafe}, bound to its instance. They are looked up at runtime,
+     * so nothing internal is referenced at compile time, and invoked exactly from constants, which the JIT
+     * compiles down to the plain atomic instructions
+     */
+    private static final MethodHandle GET_INT_VOLATILE;
+
+    private static final MethodHandle PUT_INT_VOLATILE;
+
+    private static final MethodHandle CAS_INT;
+
+    private static final MethodHandle GET_AND_ADD_INT;
+
+    private static final MethodHandle GET_LONG;
+
+    private static final MethodHandle GET_LONG_VOLATILE;
+
+    private static final MethodHandle PUT_LONG_VOLATILE;
+
+    private static final MethodHandle CAS_LONG;
+
+    /**
+     * Offset of {@code java.nio.Buffer#address}, read the same way so that no module of the JDK has to be opened
+     */
+    private static final long ADDRESS_OFFSET;
+
+    private static final Throwable UNAVAILABLE;
+
+    static {
+        MethodHandle[] handles = new MethodHandle[8];
+        long addressOffset = -1;
+        Throwable unavailable = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Object unsafe = field.get(null);
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            handles[0] = lookup.unreflect(type.getMethod("getIntVolatile", Object.class, long.class)).bindTo(unsafe);
+            handles[1] = lookup.unreflect(type.getMethod("putIntVolatile", Object.class, long.class, int.class)).bindTo(unsafe);
+            handles[2] = lookup.unreflect(type.getMethod("compareAndSwapInt", Object.class, long.class, int.class,
+                    int.class)).bindTo(unsafe);
+            handles[3] = lookup.unreflect(type.getMethod("getAndAddInt", Object.class, long.class, int.class)).bindTo(unsafe);
+            handles[4] = lookup.unreflect(type.getMethod("getLong", Object.class, long.class)).bindTo(unsafe);
+            handles[5] = lookup.unreflect(type.getMethod("getLongVolatile", Object.class, long.class)).bindTo(unsafe);
+            handles[6] = lookup.unreflect(type.getMethod("putLongVolatile", Object.class, long.class, long.class)).bindTo(unsafe);
+            handles[7] = lookup.unreflect(type.getMethod("compareAndSwapLong", Object.class, long.class, long.class,
+                    long.class)).bindTo(unsafe);
+            addressOffset = (long) type.getMethod("objectFieldOffset", Field.class)
+                    .invoke(unsafe, Buffer.class.getDeclaredField("address"));
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            unavailable = e;
+        }
+        GET_INT_VOLATILE = handles[0];
+        PUT_INT_VOLATILE = handles[1];
+        CAS_INT = handles[2];
+        GET_AND_ADD_INT = handles[3];
+        GET_LONG = handles[4];
+        GET_LONG_VOLATILE = handles[5];
+        PUT_LONG_VOLATILE = handles[6];
+        CAS_LONG = handles[7];
+        ADDRESS_OFFSET = addressOffset;
+        UNAVAILABLE = unavailable;
+    }
+
+    private final Path file;
+
+    private final int slots;
+
+    /**
+     * Unmapped once collected, the breakers hold the region to keep their addresses valid
+     */
+    private final MappedByteBuffer buffer;
+
+    private final long address;
+
+    private SharedBreakerRegion(Path file, int slots, MappedByteBuffer buffer) {
+        this.file = file;
+        this.slots = slots;
+        this.buffer = buffer;
+        this.address = addressOf(buffer);
+    }
+
+    /**
+     * <BR>Map the region file, creating it when missing. A file created by another process
+     * keeps the number of slots it was created with<BR/>
+     *
+     * @param file  region file, the same path in every process sharing the breakers
+     * @param slots breakers the file holds when it is created
+     * @return the mapped region
+     * @throws IOException           when the file can not be created or mapped
+     * @throws IllegalStateException when the file is not a breaker region, or its creator did not finish
+     *                               setting it up within {@link Constants#SHARED_BREAKER_INIT_TIMEOUT_MILLIS}
+     */
+    public static SharedBreakerRegion open(Path file, int slots) throws IOException {
+        Utils.notNull(file, "Region file");
+        Assert.isTrue(slots > 0, "Slots must > 0 ~");
+        if (UNAVAILABLE != null) {
+            throw new IllegalStateException("Shared circuit breakers need sun.misc.Unsafe of the module "
+                    + "jdk.unsupported and the field java.nio.Buffer#address, not available on this JVM", UNAVAILABLE);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = HEADER_SIZE + (long) slots * SLOT_SIZE;
+            if (channel.size() < HEADER_SIZE) {
+                // Growing never truncates a region a faster process already set up
+                channel.write(ByteBuffer.wrap(new byte[]{0}), size - 1);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            long headerAddress = addressOf(header);
+            if (casLong(headerAddress + MAGIC_OFFSET, 0, MAGIC)) {
+                putIntVolatile(headerAddress + SLOTS_OFFSET, slots);
+            } else if (getLongVolatile(headerAddress + MAGIC_OFFSET) != MAGIC) {
+                throw new IllegalStateException("Not a circuit breaker region : " + file);
+            }
+            // The creator writes the slots right after the magic, unless it died in between
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Constants.SHARED_BREAKER_INIT_TIMEOUT_MILLIS);
+            int actualSlots;
+            while ((actualSlots = getIntVolatile(headerAddress + SLOTS_OFFSET)) == 0) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw new IllegalStateException("Circuit breaker region was never initialized, "
+                            + "its creator may have died, delete the file : " + file);
+                }
+                Thread.yield();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) actualSlots * SLOT_SIZE);
+            return new SharedBreakerRegion(file, actualSlots, buffer);
+        }
+    }
+
+    /**
+     * The native address of a mapped buffer
+     */
+    private static long addressOf(MappedByteBuffer buffer) {
+        long address;
+        try {
+            address = (long) GET_LONG.invokeExact((Object) buffer, ADDRESS_OFFSET);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+        if (address == 0) {
+            throw new IllegalStateException("Mapped buffer without a native address");
+        }
+        return address;
+    }
+
+    /**
+     * <BR>The breaker {@code name} of the region, claiming its slot on first use.
+     * Every process should use the same configuration for a name<BR/>
+     *
+     * @throws IllegalStateException when every slot is taken
+     */
+    public <R> SharedWindowBreaker<R> breaker(String name, BreakerConfig config) {
+        Utils.hasText(name, "Name for circuit breaker needs to be set");
+        long hash = CompactBreakerStore.hash(name);
+        int home = (int) (hash & Integer.MAX_VALUE) % slots;
+        for (int probe = 0; probe < slots; probe++) {
+            long slot = address + HEADER_SIZE + (long) ((home + probe) % slots) * SLOT_SIZE;
+            long claimed = getLongVolatile(slot);
+            if (claimed == 0 && casLong(slot, 0, hash)) {
+                claimed = hash;
+            }
+            if (claimed == 0) {
+                claimed = getLongVolatile(slot);
+            }
+            if (claimed == hash) {
+                return new SharedWindowBreaker<>(name, config, this, slot);
+            }
+        }
+        throw new IllegalStateException("No free slot left in circuit breaker region : " + file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+
+    int getInt(long address) {
+        return getIntVolatile(address);
+    }
+
+    void putInt(long address, int value) {
+        putIntVolatile(address, value);
+    }
+
+    boolean compareAndSetInt(long address, int expect, int update) {
+        try {
+            return (boolean) CAS_INT.invokeExact((Object) null, address, expect, update);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    int addAndGetInt(long address, int delta) {
+        try {
+            return (int) GET_AND_ADD_INT.invokeExact((Object) null, address, delta) + delta;
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    long getLong(long address) {
+        return getLongVolatile(address);
+    }
+
+    void putLong(long address, long value) {
+        try {
+            PUT_LONG_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    boolean compareAndSetLong(long address, long expect, long update) {
+        return casLong(address, expect, update);
+    }
+
+    private static int getIntVolatile(long address) {
+        try {
+            return (int) GET_INT_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static void putIntVolatile(long address, int value) {
+        try {
+            PUT_INT_VOLATILE.invokeExact((Object) null, address, value);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static long getLongVolatile(long address) {
+        try {
+            return (long) GET_LONG_VOLATILE.invokeExact((Object) null, address);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static boolean casLong(long address, long expect, long update) {
+        try {
+            return (boolean) CAS_LONG.invokeExact((Object) null, address, expect, update);
+        } catch (Throwable t) {
+            throw unchecked(t);
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return t instanceof RuntimeException ? (RuntimeException) t : new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,330 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.internal.util.Assert;
+
+/**
+ * <BR>A circuit breaker whose state and window live in a {@link SharedBreakerRegion}, shared by
+ * every process on the host.<BR/>
+ * <P>It behaves like a time based {@link SlidingWindowBreaker}, the window is the current period of
+ * {@code windowSize} seconds plus the previous one weighted by how much of it still overlaps the window.
+ * Times are wall clock milliseconds, the only clock the processes share. A process that takes a half
+ * open permit and dies never records its trial, so a half open breaker whose permits stay taken for
+ * another open duration opens again and hands out new ones.<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class SharedWindowBreaker<R> implements Policy<R> {
+
+    private static final int CLOSED = 0;
+
+    private static final int OPEN = 1;
+
+    private static final int HALF_OPEN = 2;
+
+    private static final SlidingWindowBreaker.State[] STATES = SlidingWindowBreaker.State.values();
+
+    // Slot layout, the first long is the hash of the name claiming the slot
+    private static final int STATE = 8;
+
+    private static final int HALF_OPEN_PERMITS = 12;
+
+    private static final int HALF_OPEN_SUCCESSES = 16;
+
+    private static final int OPEN_UNTIL = 24;
+
+    private static final int BUCKETS = 32;
+
+    private static final int BUCKET_SIZE = 24;
+
+    // Bucket layout
+    private static final int EPOCH = 0;
+
+    private static final int CALLS = 8;
+
+    private static final int FAILURES = 12;
+
+    private static final int SLOW_CALLS = 16;
+
+    private final String name;
+
+    private final BreakerConfig config;
+
+    private final SharedBreakerRegion region;
+
+    private final long slot;
+
+    private final long periodMillis;
+
+    private final int failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final int halfOpenCalls;
+
+    private final long openMillis;
+
+    private final int slowCallRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final FailoverRejectedException rejection;
+
+    SharedWindowBreaker(String name, BreakerConfig config, SharedBreakerRegion region, long slot) {
+        Assert.notNull(config, "Breaker config is non null");
+        Assert.isTrue(config.getWindowType() == BreakerConfig.WindowType.TIME_BASED,
+                "Shared circuit breakers need a time based window ~");
+        this.name = name;
+        this.config = config;
+        this.region = region;
+        this.slot = slot;
+        this.periodMillis = config.getWindowSize() * 1000L;
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.minimumCalls = config.getMinimumCalls();
+        this.halfOpenCalls = config.getHalfOpenCalls();
+        this.openMillis = config.getOpenDuration().toMillis();
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.slowCallNanos = config.getSlowCallThreshold().toNanos();
+        this.rejection = new FailoverRejectedException("Circuit breaker " + name + " is open", false);
+    }
+
+    /**
+     * <BR>Whether a call may run now, takes a trial permit when half open<BR/>
+     */
+    public boolean tryAcquirePermission() {
+        return acquire() != OPEN;
+    }
+
+    /**
+     * <BR>Give back the trial permit of a call that never reached the dependency,
+     * e.g. because an inner policy rejected it. Without it the breaker would stay half open
+     * until the permits are handed out again after another open duration<BR/>
+     * Does nothing unless the breaker is half open
+     */
+    public void releasePermission() {
+        for (;;) {
+            if (region.getInt(slot + STATE) != HALF_OPEN) {
+                return;
+            }
+            int permits = region.getInt(slot + HALF_OPEN_PERMITS);
+            if (region.compareAndSetInt(slot + HALF_OPEN_PERMITS, permits, permits + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the permission of a call
+     *
+     * @return CLOSED for a normal call, HALF_OPEN for a trial call, OPEN if rejected
+     */
+    private int acquire() {
+        int current = region.getInt(slot + STATE);
+        if (current == CLOSED) {
+            return CLOSED;
+        }
+        long now = System.currentTimeMillis();
+        long openUntil = region.getLong(slot + OPEN_UNTIL);
+        if (current == OPEN) {
+            if (now < openUntil) {
+                return OPEN;
+            }
+            if (region.compareAndSetInt(slot + STATE, OPEN, HALF_OPEN)) {
+                JfrSupport.breakerTransition(name, SlidingWindowBreaker.State.OPEN, SlidingWindowBreaker.State.HALF_OPEN);
+            }
+        }
+        for (;;) {
+            int permits = region.getInt(slot + HALF_OPEN_PERMITS);
+            if (permits <= 0) {
+                if (now - openUntil >= openMillis) {
+                    open(HALF_OPEN, now);
+                }
+                return OPEN;
+            }
+            if (region.compareAndSetInt(slot + HALF_OPEN_PERMITS, permits, permits - 1)) {
+                return HALF_OPEN;
+            }
+        }
+    }
+
+    /**
+     * <BR>Count the outcome of a call that was permitted<BR/>
+     *
+     * @param failed        whether the call failed
+     * @param durationNanos how long the call took
+     */
+    public void record(boolean failed, long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        long now = System.currentTimeMillis();
+        int current = region.getInt(slot + STATE);
+        if (current == CLOSED) {
+            long bucket = bucket(now);
+            region.addAndGetInt(bucket + CALLS, 1);
+            if (failed) {
+                region.addAndGetInt(bucket + FAILURES, 1);
+            }
+            if (slow) {
+                region.addAndGetInt(bucket + SLOW_CALLS, 1);
+            }
+            if ((failed || slow) && shouldOpen(now)) {
+                open(CLOSED, now);
+            }
+        } else if (current == HALF_OPEN) {
+            if (failed || slow) {
+                open(HALF_OPEN, now);
+            } else if (region.addAndGetInt(slot + HALF_OPEN_SUCCESSES, 1) >= halfOpenCalls
+                    && region.compareAndSetInt(slot + STATE, HALF_OPEN, CLOSED)) {
+                region.putLong(slot + BUCKETS + EPOCH, -1);
+                region.putLong(slot + BUCKETS + BUCKET_SIZE + EPOCH, -1);
+                JfrSupport.breakerTransition(name, SlidingWindowBreaker.State.HALF_OPEN, SlidingWindowBreaker.State.CLOSED);
+            }
+        }
+    }
+
+    /**
+     * The bucket of the current period, cleared by the first call of the period
+     */
+    private long bucket(long now) {
+        long epoch = now / periodMillis;
+        long bucket = slot + BUCKETS + (epoch & 1) * BUCKET_SIZE;
+        long seen = region.getLong(bucket + EPOCH);
+        if (seen < epoch && region.compareAndSetLong(bucket + EPOCH, seen, epoch)) {
+            region.putInt(bucket + CALLS, 0);
+            region.putInt(bucket + FAILURES, 0);
+            region.putInt(bucket + SLOW_CALLS, 0);
+        }
+        return bucket;
+    }
+
+    private boolean shouldOpen(long now) {
+        double calls = estimate(now, CALLS);
+        return calls >= minimumCalls && (estimate(now, FAILURES) * 100 >= calls * failureRateThreshold
+                || estimate(now, SLOW_CALLS) * 100 >= calls * slowCallRateThreshold);
+    }
+
+    /**
+     * The counter of the current period plus the overlapping part of the previous one
+     */
+    private double estimate(long now, int counter) {
+        long epoch = now / periodMillis;
+        double sum = 0;
+        for (int i = 0; i < 2; i++) {
+            long bucket = slot + BUCKETS + i * BUCKET_SIZE;
+            long bucketEpoch = region.getLong(bucket + EPOCH);
+            if (bucketEpoch == epoch) {
+                sum += region.getInt(bucket + counter);
+            } else if (bucketEpoch == epoch - 1) {
+                sum += region.getInt(bucket + counter) * (1 - (double) (now % periodMillis) / periodMillis);
+            }
+        }
+        return sum;
+    }
+
+    private void open(int from, long now) {
+        region.putInt(slot + HALF_OPEN_PERMITS, halfOpenCalls);
+        region.putInt(slot + HALF_OPEN_SUCCESSES, 0);
+        region.putLong(slot + OPEN_UNTIL, now + openMillis);
+        if (region.compareAndSetInt(slot + STATE, from, OPEN)) {
+            JfrSupport.breakerTransition(name, STATES[from], SlidingWindowBreaker.State.OPEN);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BreakerConfig getConfig() {
+        return config;
+    }
+
+    public SlidingWindowBreaker.State getState() {
+        return STATES[region.getInt(slot + STATE)];
+    }
+
+    /**
+     * Whether calls are currently rejected
+     */
+    public boolean isOpen() {
+        return region.getInt(slot + STATE) == OPEN && System.currentTimeMillis() < region.getLong(slot + OPEN_UNTIL);
+    }
+
+    /**
+     * Calls in the window of every process, estimated
+     */
+    public long getCalls() {
+        return Math.round(estimate(System.currentTimeMillis(), CALLS));
+    }
+
+    /**
+     * Failed calls in the window of every process, estimated
+     */
+    public long getFailures() {
+        return Math.round(estimate(System.currentTimeMillis(), FAILURES));
+    }
+
+    @Override
+    public PolicyExecutor toExecutor(AbstractExecution execution) {
+        return new PolicyExecutor<Policy<R>>(this, execution) {
+
+            private long startNanos;
+
+            private boolean trial;
+
+            @Override
+            protected ExecutionResult preExecute() {
+                int permission = acquire();
+                if (permission == OPEN) {
+                    return ExecutionResult.failure(rejection);
+                }
+                trial = permission == HALF_OPEN;
+                startNanos = System.nanoTime();
+                return null;
+            }
+
+            @Override
+            protected void onSuccess(ExecutionResult result) {
+                record(false, System.nanoTime() - startNanos);
+            }
+
+            @Override
+            protected ExecutionResult onFailure(ExecutionResult result) {
+                // A call rejected by an inner policy never reached the dependency
+                if (!(result.getFailure() instanceof FailoverRejectedException)) {
+                    record(true, System.nanoTime() - startNanos);
+                } else if (trial) {
+                    releasePermission();
+                }
+                return result;
+            }
+        };
+    }
+}
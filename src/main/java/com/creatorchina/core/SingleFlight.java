@@ -0,0 +1,138 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import net.jodah.failsafe.FailsafeException;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <BR>Coalesces identical concurrent calls.<BR/>
+ * <P>The first caller of a key runs the call, every caller arriving while it is in flight waits for
+ * the same result, failure or fallback instead of starting its own execution with its own retries.
+ * Nothing is cached: the key is released the moment the call completes, so the next caller runs
+ * the call again.<P/>
+ * <P>The key has to identify the request completely, e.g. the URL with its parameters, calls with
+ * the same key must be interchangeable<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inflight = new ConcurrentHashMap<>();
+
+    /**
+     * <BR>Run {@code call} unless the same key is already in flight<BR/>
+     *
+     * @param key  identifies the call
+     * @param call starts the call, only invoked by the first caller of the key
+     * @return completes with the result of the call that ran
+     */
+    public CompletableFuture<V> execute(K key, Supplier<? extends CompletionStage<V>> call) {
+        Assert.notNull(key, "Key is non null");
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inflight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return existing.thenApply(Function.identity());
+        }
+        try {
+            call.get().whenComplete((v, t) -> {
+                inflight.remove(key, flight);
+                if (t == null) {
+                    flight.complete(v);
+                } else {
+                    flight.completeExceptionally(t);
+                }
+            });
+        } catch (Throwable t) {
+            inflight.remove(key, flight);
+            flight.completeExceptionally(t);
+        }
+        // Each caller gets its own future, one of them cancelling must not cancel the others
+        return flight.thenApply(Function.identity());
+    }
+
+    /**
+     * <BR>Run {@code call} on the calling thread unless the same key is already in flight,
+     * in which case the result of the running call is waited for<BR/>
+     *
+     * @param key  identifies the call
+     * @param call the call, only invoked by the first caller of the key
+     * @return the result of the call that ran
+     * @throws FailsafeException if a waiter is interrupted, or the call failed with a checked exception
+     */
+    public V join(K key, Supplier<V> call) {
+        Assert.notNull(key, "Key is non null");
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inflight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V result = call.get();
+            inflight.remove(key, flight);
+            flight.complete(result);
+            return result;
+        } catch (Throwable t) {
+            inflight.remove(key, flight);
+            flight.completeExceptionally(t);
+            throw t;
+        }
+    }
+
+    /**
+     * Keys in flight right now
+     */
+    public int inflightCount() {
+        return inflight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new FailsafeException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FailsafeException(e);
+        }
+    }
+}
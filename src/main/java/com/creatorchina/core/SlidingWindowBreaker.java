@@ -0,0 +1,488 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.creatorchina.core;
+
+import com.creatorchina.util.Utils;
+import net.jodah.failsafe.AbstractExecution;
+import net.jodah.failsafe.ExecutionResult;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.PolicyExecutor;
+import net.jodah.failsafe.internal.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <BR>A circuit breaker over a sliding window of the latest calls.<BR/>
+ * <P>The window is either count based, a ring of the outcomes of the last calls, or time based,
+ * a ring of one-second buckets of counters. Both are flat primitive arrays updated with atomic
+ * instructions, there is no lock and no allocation per call. Checking whether a call may run
+ * is a single volatile read while the breaker is closed. The window counts failed calls and slow calls,
+ * either rate reaching its threshold opens the breaker.<P/>
+ * <P>When the breaker is open the call is rejected with a {@link FailoverRejectedException} that is
+ * created once per breaker, the retry policy aborts and the call goes straight to the fallback.
+ * Breakers are shared per dependency name, see {@link CircuitBreakerRegistry#windowBreaker(String, BreakerConfig)}<P/>
+ *
+ * @author jack.liang
+ * @date 2026-10-18
+ * @see BreakerConfig
+ */
+public final class SlidingWindowBreaker<R> implements Policy<R> {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final int CLOSED = 0;
+
+    private static final int OPEN = 1;
+
+    private static final int HALF_OPEN = 2;
+
+    private static final State[] STATES = State.values();
+
+    private final String name;
+
+    private final BreakerConfig config;
+
+    private final int failureRateThreshold;
+
+    private final int minimumCalls;
+
+    private final int halfOpenCalls;
+
+    private final long openNanos;
+
+    private final int slowCallRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final Window window;
+
+    private final FailoverRejectedException rejection;
+
+    private final AtomicInteger state = new AtomicInteger(CLOSED);
+
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    private volatile long openUntil;
+
+    public SlidingWindowBreaker(String name, BreakerConfig config) {
+        Utils.hasText(name, "Name for circuit breaker needs to be set");
+        Assert.notNull(config, "Breaker config is non null");
+        this.name = name;
+        this.config = config;
+        this.failureRateThreshold = config.getFailureRateThreshold();
+        this.minimumCalls = config.getMinimumCalls();
+        this.halfOpenCalls = config.getHalfOpenCalls();
+        this.openNanos = config.getOpenDuration().toNanos();
+        this.slowCallRateThreshold = config.getSlowCallRateThreshold();
+        this.slowCallNanos = config.getSlowCallThreshold().toNanos();
+        this.window = config.getWindowType() == BreakerConfig.WindowType.COUNT_BASED
+                ? new CountWindow(config.getWindowSize())
+                : new TimeWindow(config.getWindowSize());
+        this.rejection = new FailoverRejectedException("Circuit breaker " + name + " is open", false);
+    }
+
+    /**
+     * <BR>Whether a call may run now, takes a trial permit when half open<BR/>
+     */
+    public boolean tryAcquirePermission() {
+        return acquire() != OPEN;
+    }
+
+    /**
+     * <BR>Give back the trial permit of a call that never reached the dependency,
+     * e.g. because an inner policy rejected it. Without it the breaker would stay half open<BR/>
+     * Does nothing unless the breaker is half open
+     */
+    public void releasePermission() {
+        if (state.get() == HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    /**
+     * Takes the permission of a call
+     *
+     * @return CLOSED for a normal call, HALF_OPEN for a trial call, OPEN if rejected
+     */
+    private int acquire() {
+        int current = state.get();
+        if (current == CLOSED) {
+            return CLOSED;
+        }
+        if (current == OPEN) {
+            if (System.nanoTime() - openUntil < 0) {
+                return OPEN;
+            }
+            if (state.compareAndSet(OPEN, HALF_OPEN)) {
+                JfrSupport.breakerTransition(name, State.OPEN, State.HALF_OPEN);
+            }
+        }
+        for (;;) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return OPEN;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return HALF_OPEN;
+            }
+        }
+    }
+
+    /**
+     * <BR>Count the outcome of a call that was permitted, as a fast call<BR/>
+     *
+     * @param failed whether the call failed
+     */
+    public void record(boolean failed) {
+        record(failed, 0);
+    }
+
+    /**
+     * <BR>Count the outcome of a call that was permitted<BR/>
+     *
+     * @param failed        whether the call failed
+     * @param durationNanos how long the call took
+     */
+    public void record(boolean failed, long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        int current = state.get();
+        if (current == CLOSED) {
+            window.record(failed, slow);
+            if (failed || slow) {
+                evaluate();
+            }
+        } else if (current == HALF_OPEN) {
+            if (failed || slow) {
+                open(HALF_OPEN);
+            } else if (halfOpenSuccesses.incrementAndGet() >= halfOpenCalls && state.compareAndSet(HALF_OPEN, CLOSED)) {
+                window.reset();
+                JfrSupport.breakerTransition(name, State.HALF_OPEN, State.CLOSED);
+            }
+        }
+    }
+
+    private void evaluate() {
+        long calls = window.calls();
+        if (calls >= minimumCalls && (window.failures() * 100 >= calls * failureRateThreshold
+                || window.slowCalls() * 100 >= calls * slowCallRateThreshold)) {
+            open(CLOSED);
+        }
+    }
+
+    private void open(int from) {
+        halfOpenPermits.set(halfOpenCalls);
+        halfOpenSuccesses.set(0);
+        openUntil = System.nanoTime() + openNanos;
+        if (state.compareAndSet(from, OPEN)) {
+            JfrSupport.breakerTransition(name, STATES[from], State.OPEN);
+        }
+    }
+
+    /**
+     * Time left before an open breaker lets trial calls through, 0 when closed or half open
+     */
+    long remainingOpenNanos() {
+        return state.get() == OPEN ? Math.max(0, openUntil - System.nanoTime()) : 0;
+    }
+
+    /**
+     * Open the breaker for {@code nanos} whatever its state, used to restore a snapshot
+     */
+    void restoreOpen(long nanos) {
+        halfOpenPermits.set(halfOpenCalls);
+        halfOpenSuccesses.set(0);
+        openUntil = System.nanoTime() + nanos;
+        state.set(OPEN);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BreakerConfig getConfig() {
+        return config;
+    }
+
+    public State getState() {
+        return STATES[state.get()];
+    }
+
+    /**
+     * Whether calls are currently rejected
+     */
+    public boolean isOpen() {
+        return state.get() == OPEN && System.nanoTime() - openUntil < 0;
+    }
+
+    /**
+     * Calls in the window
+     */
+    public long getCalls() {
+        return window.calls();
+    }
+
+    /**
+     * Failed calls in the window
+     */
+    public long getFailures() {
+        return window.failures();
+    }
+
+    /**
+     * Slow calls in the window, failed or not
+     */
+    public long getSlowCalls() {
+        return window.slowCalls();
+    }
+
+    /**
+     * Slow call rate of the window in percent, or 0 without calls
+     */
+    public float getSlowCallRate() {
+        long calls = window.calls();
+        return calls == 0 ? 0 : window.slowCalls() * 100f / calls;
+    }
+
+    /**
+     * Failure rate of the window in percent, or 0 without calls
+     */
+    public float getFailureRate() {
+        long calls = window.calls();
+        return calls == 0 ? 0 : window.failures() * 100f / calls;
+    }
+
+    @Override
+    public PolicyExecutor toExecutor(AbstractExecution execution) {
+        return new PolicyExecutor<Policy<R>>(this, execution) {
+
+            private long startNanos;
+
+            private boolean trial;
+
+            @Override
+            protected ExecutionResult preExecute() {
+                int permission = acquire();
+                if (permission == OPEN) {
+                    return ExecutionResult.failure(rejection);
+                }
+                trial = permission == HALF_OPEN;
+                startNanos = System.nanoTime();
+                return null;
+            }
+
+            @Override
+            protected void onSuccess(ExecutionResult result) {
+                record(false, System.nanoTime() - startNanos);
+            }
+
+            @Override
+            protected ExecutionResult onFailure(ExecutionResult result) {
+                // A call rejected by an inner policy never reached the dependency
+                if (!(result.getFailure() instanceof FailoverRejectedException)) {
+                    record(true, System.nanoTime() - startNanos);
+                } else if (trial) {
+                    releasePermission();
+                }
+                return result;
+            }
+        };
+    }
+
+    private interface Window {
+
+        void record(boolean failed, boolean slow);
+
+        long calls();
+
+        long failures();
+
+        long slowCalls();
+
+        void reset();
+    }
+
+    /**
+     * The outcomes of the last {@code size} calls, 0 for a slot not used yet
+     */
+    private static final class CountWindow implements Window {
+
+        private static final int RECORDED = 1;
+
+        private static final int FAILED = 2;
+
+        private static final int SLOW = 4;
+
+        private final AtomicIntegerArray outcomes;
+
+        private final AtomicLong cursor = new AtomicLong();
+
+        private final LongAdder calls = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final LongAdder slowCalls = new LongAdder();
+
+        private CountWindow(int size) {
+            this.outcomes = new AtomicIntegerArray(size);
+        }
+
+        @Override
+        public void record(boolean failed, boolean slow) {
+            int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+            int old = outcomes.getAndSet((int) (cursor.getAndIncrement() % outcomes.length()), outcome);
+            if (old == 0) {
+                calls.increment();
+            }
+            int failedDelta = (outcome & FAILED) - (old & FAILED);
+            if (failedDelta != 0) {
+                failures.add(failedDelta / FAILED);
+            }
+            int slowDelta = (outcome & SLOW) - (old & SLOW);
+            if (slowDelta != 0) {
+                slowCalls.add(slowDelta / SLOW);
+            }
+        }
+
+        @Override
+        public long calls() {
+            return calls.sum();
+        }
+
+        @Override
+        public long failures() {
+            return failures.sum();
+        }
+
+        @Override
+        public long slowCalls() {
+            return slowCalls.sum();
+        }
+
+        @Override
+        public void reset() {
+            for (int i = 0; i < outcomes.length(); i++) {
+                outcomes.set(i, 0);
+            }
+            calls.reset();
+            failures.reset();
+            slowCalls.reset();
+        }
+    }
+
+    /**
+     * One bucket of counters per second over the last {@code seconds} seconds
+     */
+    private static final class TimeWindow implements Window {
+
+        private static final int CALLS = 0;
+
+        private static final int FAILURES = 1;
+
+        private static final int SLOW_CALLS = 2;
+
+        private static final int STRIDE = 3;
+
+        private static final long BUCKET_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+        private final int size;
+
+        private final AtomicLongArray epochs;
+
+        private final AtomicLongArray counts;
+
+        private TimeWindow(int seconds) {
+            this.size = seconds;
+            this.epochs = new AtomicLongArray(seconds);
+            this.counts = new AtomicLongArray(seconds * STRIDE);
+            reset();
+        }
+
+        @Override
+        public void record(boolean failed, boolean slow) {
+            long epoch = System.nanoTime() / BUCKET_NANOS;
+            int bucket = (int) Math.floorMod(epoch, (long) size);
+            long seen = epochs.get(bucket);
+            if (seen != epoch && epochs.compareAndSet(bucket, seen, epoch)) {
+                for (int metric = 0; metric < STRIDE; metric++) {
+                    counts.set(bucket * STRIDE + metric, 0);
+                }
+            }
+            counts.incrementAndGet(bucket * STRIDE + CALLS);
+            if (failed) {
+                counts.incrementAndGet(bucket * STRIDE + FAILURES);
+            }
+            if (slow) {
+                counts.incrementAndGet(bucket * STRIDE + SLOW_CALLS);
+            }
+        }
+
+        @Override
+        public long calls() {
+            return sum(CALLS);
+        }
+
+        @Override
+        public long failures() {
+            return sum(FAILURES);
+        }
+
+        @Override
+        public long slowCalls() {
+            return sum(SLOW_CALLS);
+        }
+
+        private long sum(int metric) {
+            long epoch = System.nanoTime() / BUCKET_NANOS;
+            long sum = 0;
+            for (int bucket = 0; bucket < size; bucket++) {
+                long age = epoch - epochs.get(bucket);
+                if (age >= 0 && age < size) {
+                    sum += counts.get(bucket * STRIDE + metric);
+                }
+            }
+            return sum;
+        }
+
+        @Override
+        public void reset() {
+            for (int bucket = 0; bucket < size; bucket++) {
+                epochs.set(bucket, Long.MIN_VALUE);
+                for (int metric = 0; metric < STRIDE; metric++) {
+                    counts.set(bucket * STRIDE + metric, 0);
+                }
+            }
+        }
+    }
+}
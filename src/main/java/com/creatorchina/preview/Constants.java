@@ -47,6 +47,98 @@ public interface Constants {
 
     int DELAY_RETRY = 2 << 1;
 
+    /**
+     * Caps the shared pool of SafeFailback at 2 << 8 = 512 threads, larger shifts would overflow
+     */
+    int EXECUTOR_POOL_MAX_SHIFT = 8;
+
+    int WHEEL_TICK_MILLIS = 10;
+
+    int WHEEL_TICKS_PER_WHEEL = 512;
+
+    int RETRY_BUDGET_WINDOW_SLOTS = 10;
+
+    int RETRY_BUDGET_MIN_RETRIES = 10;
+
+    int CONCURRENCY_LIMIT_MIN = 1;
+
+    int LATENCY_HISTOGRAM_SLOTS = 4;
+
+    int LATENCY_WINDOW_SECONDS = 60;
+
+    int LATENCY_QUANTILE_REFRESH_MILLIS = 100;
+
+    int HEDGING_PERCENTILE = 95;
+
+    int HEDGING_MIN_SAMPLES = 100;
+
+    double ADAPTIVE_TIMEOUT_PERCENTILE = 99.9;
+
+    double ADAPTIVE_TIMEOUT_FACTOR = 1.5;
+
+    int ADAPTIVE_TIMEOUT_MIN_SAMPLES = 100;
+
+    int BATCH_MAX_SIZE = 128;
+
+    int BATCH_MAX_DELAY_MILLIS = 10;
+
+    int BREAKER_WINDOW_SIZE = 100;
+
+    int BREAKER_FAILURE_RATE = 50;
+
+    int BREAKER_MINIMUM_CALLS = 20;
+
+    /**
+     * Trip on slow calls only when every call in the window was slow, unless configured
+     */
+    int BREAKER_SLOW_CALL_RATE = 100;
+
+    int BREAKER_SLOW_CALL_MILLIS = 60_000;
+
+    /**
+     * Lock stripes of a compact breaker store, a power of two
+     */
+    int COMPACT_BREAKER_STRIPES = 64;
+
+    int COMPACT_BREAKER_IDLE_MINUTES = 10;
+
+    int SHARED_BREAKER_SLOTS = 1024;
+
+    int SHARED_BREAKER_INIT_TIMEOUT_MILLIS = 5000;
+
+    int SNAPSHOT_PERIOD_SECONDS = 30;
+
+    /**
+     * An older snapshot describes a dependency that may have changed since, it is not restored
+     */
+    int SNAPSHOT_MAX_AGE_MINUTES = 10;
+
+    /**
+     * Per-call diagnostics are sampled, the pipeline itself is described once when it is built
+     */
+    int DIAGNOSTICS_LOG_PER_SECOND = 1;
+
+    int ASYNC_LOG_CAPACITY = 8192;
+
+    /**
+     * How long the async log thread sleeps when its ring is empty, records wait at most this long
+     */
+    int ASYNC_LOG_FLUSH_MILLIS = 100;
+
+    int LISTENER_DISPATCH_CAPACITY = 4096;
+
+    /**
+     * How long an idle listener thread parks before it looks at its ring again, publishing wakes it earlier
+     */
+    int LISTENER_DISPATCH_IDLE_MILLIS = 100;
+
+    /**
+     * How long a queued attempt of a semaphore bulkhead waits for a permit before it is rejected
+     */
+    int BULKHEAD_MAX_WAIT_MILLIS = 1000;
+
+    int BULKHEAD_KEEP_ALIVE_SECONDS = 60;
+
     //------------------------------Time-ChronoUnit ---------------------------------\\
 
     ChronoUnit CHRONOUNIT_MILLIS = ChronoUnit.MILLIS;
@@ -38,16 +38,16 @@ public final class Utils {
     }
 
 
-    public static <T> T isNull(T reference, String parameterName) {
+    public static <T> T isNull(T reference, String errorMessage) {
         if (reference != null) {
-            throw new NullPointerException(parameterName + " cannot be null");
+            throw new IllegalStateException(errorMessage);
         }
         return reference;
     }
 
 
     public static <T> T notNull(T reference, String parameterName) {
-        if (Objects.nonNull(reference)) {
+        if (Objects.isNull(reference)) {
             throw new NullPointerException(parameterName + " cannot be null");
         }
         return reference;
@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.bench;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.SlidingWindowBreaker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <pre>
+ * Permission check plus outcome recording of a closed breaker, four threads on one breaker:
+ *   countBased  ring of the last 100 outcomes
+ *   timeBased   ring of 60 one-second buckets
+ *
+ * Run with -prof gc to check that nothing is allocated per call
+ * <pre/>
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class BreakerBenchmark {
+
+    private final SlidingWindowBreaker countBased = new SlidingWindowBreaker("bench-count",
+            BreakerConfig.countBased(100).withFailureRateThreshold(100));
+
+    private final SlidingWindowBreaker timeBased = new SlidingWindowBreaker("bench-time",
+            BreakerConfig.timeBased(60).withFailureRateThreshold(100));
+
+    @Benchmark
+    public boolean countBased() {
+        boolean permitted = countBased.tryAcquirePermission();
+        countBased.record(false);
+        return permitted;
+    }
+
+    @Benchmark
+    public boolean timeBased() {
+        boolean permitted = timeBased.tryAcquirePermission();
+        timeBased.record(false);
+        return permitted;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(BreakerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
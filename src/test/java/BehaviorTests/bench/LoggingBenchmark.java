@@ -0,0 +1,162 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.bench;
+
+import com.creatorchina.core.FailoverCreator;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.SafeFailback;
+import net.jodah.failsafe.Fallback;
+import net.jodah.failsafe.Policy;
+import net.jodah.failsafe.RetryPolicy;
+import net.jodah.failsafe.function.CheckedSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <pre>
+ * Successful call with the global logger at INFO, the JUL default, and at FINE:
+ *   doRenderSync the per-call render path, formerly serialized every policy to JSON at INFO
+ *   plan         FailoverPlan.execute, described once at build
+ *
+ * main runs with the GC profiler, gc.alloc.rate.norm is expected the same at INFO and at FINE:
+ *   plan                      about 370-400 B/op
+ *   customizeResultFailover   about 430-460 B/op
+ *   customizeFunctionFailover about 420-460 B/op
+ *   doRenderSync              about 460 B/op
+ * escape analysis moves any of them by up to 32 bytes between forks, a logged call would add over 100
+ * the sampled per-call record costs nothing measurable, and nothing at all when its level is off
+ * <pre/>
+ * @author jack.liang
+ * @date 2026-10-18
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"INFO", "FINE"})
+    public String level;
+
+    private final SafeFailback<Object, Object> safeFailback = new SafeFailback<>();
+
+    @SuppressWarnings("unchecked")
+    private final Policy<Object>[] policies = new Policy[]{Fallback.of("backup"), new RetryPolicy<>().withMaxAttempts(3)};
+
+    private final FailoverPlan<Object, Object> plan = FailoverRegister.instance
+            .buildPolicy()
+            .withMaxAttempts(3)
+            .build();
+
+    private final CheckedSupplier<Object> supplier = () -> "register";
+
+    /**
+     * Below what one logged call costs, a LogRecord and its parameter array, above the escape analysis jitter
+     */
+    private static final double ALLOCATION_NOISE_BYTES = 64;
+
+    private Level previous;
+
+    @Setup
+    public void setUp() {
+        previous = Logger.getGlobal().getLevel();
+        Logger.getGlobal().setLevel(Level.parse(level));
+    }
+
+    @TearDown
+    public void tearDown() {
+        Logger.getGlobal().setLevel(previous);
+    }
+
+    @Benchmark
+    public Object doRenderSync() throws Exception {
+        return safeFailback.doRenderSync(supplier, policies).get();
+    }
+
+    @Benchmark
+    public Object plan() {
+        return plan.execute(supplier);
+    }
+
+    @Benchmark
+    public Object customizeResultFailover() throws Exception {
+        return FailoverCreator.customizeResultFailover(null, supplier, "backup", false).get();
+    }
+
+    @Benchmark
+    public Object customizeFunctionFailover() throws Exception {
+        return FailoverCreator.customizeFunctionFailover(null, supplier, event -> "backup", false).get();
+    }
+
+    /**
+     * Runs with the GC profiler and fails unless every benchmark allocates about the same per call at INFO as at FINE
+     */
+    public static void main(String[] args) throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(LoggingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+        Map<String, Double> info = new HashMap<>();
+        Map<String, Double> fine = new HashMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            double bytes = result.getSecondaryResults().get("gc.alloc.rate.norm").getScore();
+            ("INFO".equals(result.getParams().getParam("level")) ? info : fine).put(benchmark, bytes);
+        }
+        for (Map.Entry<String, Double> entry : info.entrySet()) {
+            double logged = entry.getValue() - fine.get(entry.getKey());
+            System.out.printf("%s allocates %.1f B/op at INFO, %.1f more than at FINE%n",
+                    entry.getKey(), entry.getValue(), logged);
+            if (Math.abs(logged) > ALLOCATION_NOISE_BYTES) {
+                throw new IllegalStateException(entry.getKey() + " logs on the success path");
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.AdaptiveTimeout;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.FailoverRegistry;
+import com.creatorchina.core.LatencyHistogram;
+import com.creatorchina.core.MinaFallback;
+import com.creatorchina.preview.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: AdaptiveTimeoutTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class AdaptiveTimeoutTest {
+
+    @Test
+    public void deadlineFollowsTheTail() {
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofMinutes(1));
+        AdaptiveTimeout timeout = new AdaptiveTimeout(histogram, 99.9, 2, Duration.ofMillis(10), Duration.ofSeconds(5));
+        Assert.assertEquals(Duration.ofSeconds(5), timeout.currentTimeout());
+
+        for (int i = 0; i < Constants.ADAPTIVE_TIMEOUT_MIN_SAMPLES * 10; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        long millis = timeout.currentTimeout().toMillis();
+        Assert.assertTrue("timeout was " + millis, millis >= 200 && millis <= 214);
+
+        AdaptiveTimeout clamped = new AdaptiveTimeout(histogram, 99.9, 2, Duration.ofMillis(10), Duration.ofMillis(50));
+        Assert.assertEquals(Duration.ofMillis(50), clamped.currentTimeout());
+    }
+
+    @Test
+    public void slowAttemptIsCutAndRecorded() {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(2)
+                .withAdaptiveTimeout("adaptive-timeout-test", Duration.ofMillis(50), Duration.ofMillis(200))
+                .build();
+
+        long start = System.nanoTime();
+        Assert.assertEquals("backup", plan.execute(() -> {
+            Thread.sleep(10_000);
+            return "slow";
+        }));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assert.assertEquals(2, FailoverRegistry.instance.latencyHistogram("adaptive-timeout-test").count());
+    }
+}
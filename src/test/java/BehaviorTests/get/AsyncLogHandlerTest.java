@@ -0,0 +1,142 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.AsyncLogHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * @ClassName: AsyncLogHandlerTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class AsyncLogHandlerTest {
+
+    @Test
+    public void writesOffTheCallingThreadAndRestoresTheLogger() throws Exception {
+        Logger logger = Logger.getLogger("async-log-test");
+        logger.setUseParentHandlers(false);
+        CapturingHandler target = new CapturingHandler(null);
+        logger.addHandler(target);
+
+        AsyncLogHandler handler = AsyncLogHandler.install(logger, 16);
+        Assert.assertArrayEquals(new Handler[]{handler}, logger.getHandlers());
+        for (int i = 0; i < 10; i++) {
+            logger.log(Level.INFO, "attempt {0}", i);
+        }
+        handler.flush();
+        Assert.assertTrue(target.awaitRecords(10));
+        Assert.assertEquals("attempt {0}", target.records.get(0).getMessage());
+        Assert.assertEquals(9, target.records.get(9).getParameters()[0]);
+        Assert.assertEquals("failover-async-log", target.threads.get(0));
+        Assert.assertEquals(0, handler.getDropped());
+
+        handler.uninstall();
+        Assert.assertArrayEquals(new Handler[]{target}, logger.getHandlers());
+    }
+
+    @Test
+    public void dropsAndCountsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CapturingHandler target = new CapturingHandler(release);
+        AsyncLogHandler handler = new AsyncLogHandler(new Handler[]{target}, 4);
+        try {
+            // the first record blocks the background thread, four more fill the ring
+            handler.publish(new LogRecord(Level.WARNING, "blocking"));
+            Assert.assertTrue(target.awaitRecords(1));
+            long start = System.nanoTime();
+            for (int i = 0; i < 100; i++) {
+                handler.publish(new LogRecord(Level.WARNING, "attempt failed"));
+            }
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+            Assert.assertEquals(96, handler.getDropped());
+            Assert.assertEquals(4, handler.getPending());
+
+            release.countDown();
+            handler.flush();
+            Assert.assertTrue(target.awaitRecords(6));
+            LogRecord report = target.records.get(5);
+            Assert.assertEquals(Level.WARNING, report.getLevel());
+            Assert.assertEquals(96L, report.getParameters()[0]);
+        } finally {
+            release.countDown();
+            handler.close();
+        }
+    }
+
+    private static final class CapturingHandler extends Handler {
+
+        private final List<LogRecord> records = new CopyOnWriteArrayList<>();
+
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch release;
+
+        CapturingHandler(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+            threads.add(Thread.currentThread().getName());
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        boolean awaitRecords(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (records.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return records.size() >= count;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BatchCollector;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: BatchCollectorTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class BatchCollectorTest {
+
+    private final FailoverPlan<Object, Object> plan = FailoverRegister.instance
+            .buildPolicy(MinaFallback.of(() -> "unknown"))
+            .withMaxAttempts(2)
+            .build();
+
+    @Test
+    public void keysOfOneWindowShareABulkCall() throws Exception {
+        List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        BatchCollector<String, String> collector = new BatchCollector<>(plan, keys -> {
+            batches.add(keys);
+            Map<String, String> found = new HashMap<>();
+            keys.stream().filter(key -> !key.equals("ghost")).forEach(key -> found.put(key, key.toUpperCase()));
+            return found;
+        }, 100, Duration.ofMillis(50));
+
+        CompletableFuture<String> a = collector.load("a");
+        CompletableFuture<String> b = collector.load("b");
+        CompletableFuture<String> again = collector.load("a");
+        CompletableFuture<String> ghost = collector.load("ghost");
+
+        Assert.assertNotSame(a, again);
+        Assert.assertTrue(again.cancel(false));
+        Assert.assertEquals("A", a.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("B", b.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(again.isCancelled());
+        Assert.assertEquals("unknown", ghost.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList("a", "b", "ghost"), batches.get(0));
+        Assert.assertEquals(Collections.singletonList("ghost"), batches.get(1));
+        Assert.assertEquals(2, batches.size());
+    }
+
+    @Test
+    public void fullBatchesAreDispatchedAtOnce() throws Exception {
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        BatchCollector<Integer, Integer> collector = new BatchCollector<>(plan, keys -> {
+            sizes.add(keys.size());
+            Map<Integer, Integer> found = new HashMap<>();
+            keys.forEach(key -> found.put(key, key * 2));
+            return found;
+        }, 3, Duration.ofSeconds(30));
+
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(collector.load(i));
+        }
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals(Integer.valueOf(i * 2), futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        CompletableFuture<Integer> last = collector.load(6);
+        collector.flush();
+        Assert.assertEquals(Integer.valueOf(12), last.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(3, 3, 1), sizes);
+    }
+}
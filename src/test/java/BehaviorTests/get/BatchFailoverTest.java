@@ -0,0 +1,117 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: BatchFailoverTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class BatchFailoverTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void onlyFailedKeysAreRetried() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        FailoverRegister<Object, Object, Object> register = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "unknown"))
+                .withMaxAttempts(3);
+        Map<Integer, String> users = register
+                .assemblyFailoverBatch(Arrays.asList(1, 2, 3, 4, 5), (List<Integer> batch) -> {
+                    batchSizes.add(batch.size());
+                    Map<Integer, String> found = new HashMap<>();
+                    for (int key : batch) {
+                        if (key != 5 && (key != 3 || batchSizes.size() > 1)) {
+                            found.put(key, "user-" + key);
+                        }
+                    }
+                    return found;
+                })
+                .get(5, TimeUnit.SECONDS);
+
+        Assert.assertEquals(Arrays.asList(5, 2, 1), batchSizes);
+        Assert.assertEquals(5, users.size());
+        Assert.assertEquals("user-3", users.get(3));
+        Assert.assertEquals("unknown", users.get(5));
+    }
+
+    @Test
+    public void failedKeysFallBackToTheirLastGoodValue() {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.ofLastKnownGood(100, Duration.ofMinutes(1)))
+                .withMaxAttempts(2)
+                .build();
+        Map<String, String> first = plan.executeBatch(Arrays.asList("a", "b"), batch -> {
+            Map<String, String> found = new HashMap<>();
+            batch.forEach(key -> found.put(key, key + "-1"));
+            return found;
+        });
+        Assert.assertEquals("b-1", first.get("b"));
+
+        Map<String, String> second = plan.executeBatch(Arrays.asList("a", "b", "c"), batch -> {
+            if (batch.contains("b")) {
+                throw new IllegalStateException("down");
+            }
+            return new HashMap<>();
+        });
+        Assert.assertEquals("a-1", second.get("a"));
+        Assert.assertEquals("b-1", second.get("b"));
+        Assert.assertTrue(second.containsKey("c"));
+        Assert.assertNull(second.get("c"));
+    }
+
+    @Test
+    public void keyWhoseFallbackFailsIsStillInTheResult() {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> {
+                    throw new IllegalStateException("no backup");
+                }))
+                .build();
+        Map<String, String> users = plan.executeBatch(Arrays.asList("a", "b"), batch -> {
+            Map<String, String> found = new HashMap<>();
+            found.put("a", "user-a");
+            return found;
+        });
+        Assert.assertEquals("user-a", users.get("a"));
+        Assert.assertTrue(users.containsKey("b"));
+        Assert.assertNull(users.get("b"));
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.Bulkhead;
+import com.creatorchina.core.ExecutionMode;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.FailoverRegistry;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: BulkheadTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class BulkheadTest {
+
+    @Test
+    public void threadPoolRejectsOverflowToTheFallback() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        FailoverPlan<Object, Object> slow = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(3)
+                .withBulkhead("bulkhead-slow", 2, 1)
+                .build();
+        FailoverPlan<Object, Object> healthy = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withBulkhead("bulkhead-healthy", 2, 1)
+                .build();
+        Bulkhead<?> bulkhead = FailoverRegistry.instance.bulkhead("bulkhead-slow", Bulkhead.Isolation.THREAD_POOL, 2, 1);
+        try {
+            List<CompletableFuture<Object>> calls = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                calls.add(slow.getAsync(() -> {
+                    release.await();
+                    return Thread.currentThread().getName();
+                }));
+            }
+            Assert.assertEquals("backup", calls.get(3).get(1, TimeUnit.SECONDS));
+            Assert.assertEquals("backup", calls.get(4).get(1, TimeUnit.SECONDS));
+            Assert.assertEquals(2, bulkhead.getRejected());
+            Assert.assertEquals(1, bulkhead.getQueued());
+            Assert.assertEquals(2L, ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(FailoverRegistry.bulkheadObjectName("bulkhead-slow"), "Rejected"));
+
+            // the slow dependency holds its own threads only
+            Assert.assertEquals("ok", healthy.execute(() -> "ok"));
+
+            release.countDown();
+            for (int i = 0; i < 3; i++) {
+                Assert.assertTrue(((String) calls.get(i).get(1, TimeUnit.SECONDS)).startsWith("failover-bulkhead-bulkhead-slow"));
+            }
+            Assert.assertEquals(3, bulkhead.getCompleted());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void semaphoreRunsOnTheCallerAndRejectsWhenFull() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(3)
+                .withBulkhead("bulkhead-semaphore", Bulkhead.Isolation.SEMAPHORE, 1, 0)
+                .build();
+        Bulkhead<?> bulkhead = FailoverRegistry.instance.bulkhead("bulkhead-semaphore", Bulkhead.Isolation.SEMAPHORE, 1, 0);
+        CompletableFuture<Object> running = plan.getAsync(() -> {
+            entered.countDown();
+            release.await();
+            return "ok";
+        });
+        try {
+            Assert.assertTrue(entered.await(1, TimeUnit.SECONDS));
+            Assert.assertEquals(1, bulkhead.getActive());
+            Assert.assertEquals("backup", plan.execute(() -> "never"));
+            Assert.assertEquals(1, bulkhead.getRejected());
+        } finally {
+            release.countDown();
+        }
+        Assert.assertEquals("ok", running.get(1, TimeUnit.SECONDS));
+        Assert.assertEquals(Thread.currentThread().getName(), plan.execute(() -> Thread.currentThread().getName()));
+    }
+
+    @Test
+    public void semaphoreNeverBlocksAnAsyncCaller() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withBulkhead("bulkhead-semaphore-async", Bulkhead.Isolation.SEMAPHORE, 1, 1)
+                .build();
+        CompletableFuture<Object> running = plan.getAsync(() -> {
+            entered.countDown();
+            release.await();
+            return "ok";
+        });
+        try {
+            Assert.assertTrue(entered.await(1, TimeUnit.SECONDS));
+            long start = System.nanoTime();
+            CompletableFuture<Object> queued = plan.getAsync(() -> "never");
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+            Assert.assertEquals("backup", queued.get(1, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+        Assert.assertEquals("ok", running.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void registerSyncCallsRunOnTheBulkheadThreads() throws Exception {
+        FailoverRegister register = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withBulkhead("bulkhead-register", 2, 1);
+        Assert.assertTrue(((String) register.execute(() -> Thread.currentThread().getName()))
+                .startsWith("failover-bulkhead-bulkhead-register"));
+        Assert.assertTrue(((String) register.execute("key", () -> Thread.currentThread().getName()))
+                .startsWith("failover-bulkhead-bulkhead-register"));
+        Assert.assertTrue(((String) register.assemblyFailover(() -> Thread.currentThread().getName(), false).get())
+                .startsWith("failover-bulkhead-bulkhead-register"));
+        Assert.assertEquals("backup", register.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+    }
+
+    @Test
+    public void threadPoolCanNotBeCombinedWithAnExecutionMode() {
+        try {
+            FailoverRegister.instance
+                    .buildPolicy(MinaFallback.of(() -> "backup"))
+                    .withBulkhead("bulkhead-mode", 2, 1)
+                    .withExecutionMode(ExecutionMode.POOLED);
+            Assert.fail("the execution mode would replace the bulkhead threads");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            FailoverRegister.instance
+                    .buildPolicy(MinaFallback.of(() -> "backup"))
+                    .withExecutionMode(ExecutionMode.POOLED)
+                    .withBulkhead("bulkhead-mode", 2, 1);
+            Assert.fail("the bulkhead threads would replace the execution mode");
+        } catch (IllegalStateException expected) {
+        }
+        FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withExecutionMode(ExecutionMode.POOLED)
+                .withBulkhead("bulkhead-mode", Bulkhead.Isolation.SEMAPHORE, 2, 0);
+    }
+}
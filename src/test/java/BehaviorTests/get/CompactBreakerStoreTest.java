@@ -0,0 +1,155 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.CircuitBreakerRegistry;
+import com.creatorchina.core.CompactBreakerStore;
+import com.creatorchina.core.FailoverRejectedException;
+import com.creatorchina.core.SlidingWindowBreaker;
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.Fallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: CompactBreakerStoreTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class CompactBreakerStoreTest {
+
+    @Test
+    public void keysTripIndependently() {
+        CompactBreakerStore store = new CompactBreakerStore("tenants", 1000,
+                BreakerConfig.countBased(10).withMinimumCalls(4), Duration.ofMinutes(1));
+        for (int i = 0; i < 4; i++) {
+            Assert.assertTrue(store.tryAcquirePermission("tenant-a"));
+            store.record("tenant-a", true, 0);
+            Assert.assertTrue(store.tryAcquirePermission("tenant-b"));
+            store.record("tenant-b", false, 0);
+        }
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, store.getState("tenant-a"));
+        Assert.assertFalse(store.tryAcquirePermission("tenant-a"));
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, store.getState("tenant-b"));
+        Assert.assertTrue(store.tryAcquirePermission("tenant-b"));
+        Assert.assertEquals(2, store.size());
+    }
+
+    @Test
+    public void countWindowSmallerThanTheDefaultMinimumStillOpens() {
+        CompactBreakerStore store = new CompactBreakerStore("small-windows", 16,
+                BreakerConfig.countBased(5), Duration.ofMinutes(1));
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(store.tryAcquirePermission("tenant"));
+            store.record("tenant", true, 0);
+        }
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, store.getState("tenant"));
+    }
+
+    @Test
+    public void halfOpenTrialsClose() throws Exception {
+        CompactBreakerStore store = new CompactBreakerStore("hosts", 16, BreakerConfig.timeBased(10)
+                .withMinimumCalls(2)
+                .withOpenDuration(Duration.ofMillis(50))
+                .withHalfOpenCalls(2), Duration.ofMinutes(1));
+        store.tryAcquirePermission("host");
+        store.record("host", true, 0);
+        store.tryAcquirePermission("host");
+        store.record("host", true, 0);
+        Assert.assertFalse(store.tryAcquirePermission("host"));
+
+        Thread.sleep(80);
+        Assert.assertTrue(store.tryAcquirePermission("host"));
+        Assert.assertTrue(store.tryAcquirePermission("host"));
+        Assert.assertFalse(store.tryAcquirePermission("host"));
+        Assert.assertEquals(SlidingWindowBreaker.State.HALF_OPEN, store.getState("host"));
+        store.record("host", false, 0);
+        store.record("host", false, 0);
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, store.getState("host"));
+    }
+
+    @Test
+    public void sizeStaysBounded() throws Exception {
+        CompactBreakerStore store = new CompactBreakerStore("bounded", 256,
+                BreakerConfig.ofDefaults(), Duration.ofMillis(20));
+        for (int i = 0; i < 100_000; i++) {
+            store.tryAcquirePermission("key-" + i);
+        }
+        Assert.assertTrue(store.size() <= 256);
+        Assert.assertEquals(100_000 - store.size(), store.getEvictions());
+        for (int i = 99_990; i < 100_000; i++) {
+            Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, store.getState("key-" + i));
+        }
+
+        Thread.sleep(40);
+        Assert.assertEquals(store.size(), store.evictIdle());
+        Assert.assertEquals(0, store.size());
+    }
+
+    @Test
+    public void openKeyGoesStraightToFallback() {
+        CompactBreakerStore store = CircuitBreakerRegistry.instance.compactBreakerStore("compact-store-test",
+                1000, BreakerConfig.countBased(4).withMinimumCalls(4), null);
+        Assert.assertSame(store, CircuitBreakerRegistry.instance.compactBreakerStore("compact-store-test", 1, null, null));
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals("backup", Failsafe.with(Fallback.of("backup"), store.forKey("host-a")).get(() -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("down");
+            }));
+        }
+        Assert.assertEquals(4, calls.get());
+        Assert.assertEquals("ok", Failsafe.with(Fallback.of("backup"), store.forKey("host-b")).get(() -> "ok"));
+    }
+
+    @Test
+    public void trialCallRejectedInsideGivesItsPermitBack() throws Exception {
+        CompactBreakerStore store = new CompactBreakerStore("compact-release-test", 10, BreakerConfig.countBased(2)
+                .withMinimumCalls(2)
+                .withOpenDuration(Duration.ofMillis(100))
+                .withHalfOpenCalls(1), Duration.ofMinutes(1));
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("backup", Failsafe.with(Fallback.of("backup"), store.forKey("host-a")).get(() -> {
+                throw new IllegalStateException("down");
+            }));
+        }
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, store.getState("host-a"));
+        Thread.sleep(150);
+
+        // An inner policy rejects the only trial call, e.g. a full bulkhead
+        Assert.assertEquals("backup", Failsafe.with(Fallback.of("backup"), store.forKey("host-a")).get(() -> {
+            throw new FailoverRejectedException("Bulkhead is full");
+        }));
+        Assert.assertEquals(SlidingWindowBreaker.State.HALF_OPEN, store.getState("host-a"));
+        Assert.assertEquals("ok", Failsafe.with(Fallback.of("backup"), store.forKey("host-a")).get(() -> "ok"));
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, store.getState("host-a"));
+    }
+}
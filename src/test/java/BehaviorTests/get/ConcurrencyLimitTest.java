@@ -0,0 +1,88 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.ConcurrencyLimit;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: ConcurrencyLimitTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class ConcurrencyLimitTest {
+
+    @Test
+    public void aimdGrowsUnderLoadAndBacksOffOnFailure() {
+        ConcurrencyLimit limit = new ConcurrencyLimit(ConcurrencyLimit.Algorithm.AIMD, 4, 100);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(limit.tryAcquire());
+            Assert.assertTrue(limit.tryAcquire());
+            Assert.assertTrue(limit.tryAcquire());
+            limit.release(1_000_000, false);
+            limit.release(1_000_000, false);
+            limit.release(1_000_000, false);
+        }
+        int grown = limit.getLimit();
+        Assert.assertTrue(grown > 4);
+        Assert.assertTrue(limit.tryAcquire());
+        limit.release(1_000_000, true);
+        Assert.assertTrue(limit.getLimit() < grown);
+        Assert.assertEquals(0, limit.getInflight());
+    }
+
+    @Test
+    public void excessCallsGoStraightToFallback() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(3)
+                .withConcurrencyLimit("concurrency-limit-test", ConcurrencyLimit.Algorithm.GRADIENT, 1, 1)
+                .build();
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> busy = plan.getAsync(() -> {
+            started.countDown();
+            release.await();
+            return "primary";
+        });
+        Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        Assert.assertEquals("backup", plan.execute(() -> "never runs"));
+        release.countDown();
+        Assert.assertEquals("primary", busy.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("primary", plan.execute(() -> "primary"));
+    }
+}
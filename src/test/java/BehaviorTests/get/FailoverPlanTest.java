@@ -0,0 +1,156 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.ExecutionMode;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: FailoverPlanTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class FailoverPlanTest {
+
+    @Test
+    public void planIsReusableAcrossCalls() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy()
+                .withMaxAttempts(3)
+                .withDelay(Duration.ofMillis(10))
+                .build();
+
+        for (int i = 0; i < 3; i++) {
+            Object result = plan.getAsync(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("down");
+            }).get();
+            Assert.assertNull(result);
+        }
+        Assert.assertEquals(9, attempts.get());
+        Assert.assertEquals(2, plan.getPolicies().size());
+    }
+
+    @Test
+    public void buildPolicyDoesNotShareState() {
+        FailoverPlan first = FailoverRegister.instance.buildPolicy().withMaxAttempts(2).build();
+        FailoverPlan second = FailoverRegister.instance.buildPolicy().withMaxAttempts(5).build();
+
+        Assert.assertEquals(2, first.getPolicies().size());
+        Assert.assertEquals(2, second.getPolicies().size());
+        Assert.assertNotSame(first.getPolicies().get(1), second.getPolicies().get(1));
+    }
+
+    @Test
+    public void planIsSafeForConcurrentCallers() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance.buildPolicy().build();
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            int value = i;
+            futures.add(plan.getAsync(() -> value));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            Assert.assertEquals(i, futures.get(i).get());
+        }
+    }
+
+    @Test
+    public void virtualModeRunsOnVirtualThreadsWhenSupported() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy()
+                .withExecutionMode(ExecutionMode.VIRTUAL)
+                .build();
+
+        Thread thread = (Thread) plan.getAsync(Thread::currentThread).get();
+        if (ExecutionMode.VIRTUAL.isSupported()) {
+            Assert.assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+        } else {
+            Assert.assertNotSame(Thread.currentThread(), thread);
+        }
+    }
+
+    @Test
+    public void executeRunsOnTheCallingThread() {
+        AtomicInteger attempts = new AtomicInteger();
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy()
+                .withMaxAttempts(2)
+                .withDelay(Duration.ofMillis(10))
+                .build();
+
+        Assert.assertSame(Thread.currentThread(), plan.execute(Thread::currentThread));
+        Assert.assertNull(plan.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("down");
+        }));
+        Assert.assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void stageSupplierIsRetriedWithoutBlocking() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<Object> future = FailoverRegister.instance
+                .buildPolicy()
+                .withMaxAttempts(3)
+                .withDelay(Duration.ofMillis(10))
+                .assemblyFailoverStage(() -> {
+                    CompletableFuture<Object> stage = new CompletableFuture<>();
+                    if (attempts.incrementAndGet() < 3) {
+                        stage.completeExceptionally(new IllegalStateException("down"));
+                    } else {
+                        stage.complete("register");
+                    }
+                    return stage;
+                });
+
+        Assert.assertEquals("register", future.get());
+        Assert.assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void stageSupplierFallsBackAfterLastAttempt() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(2)
+                .build();
+
+        CompletableFuture<Object> stage = new CompletableFuture<>();
+        stage.completeExceptionally(new IllegalStateException("down"));
+        Assert.assertEquals("backup", plan.getStageAsync(() -> stage).get());
+    }
+}
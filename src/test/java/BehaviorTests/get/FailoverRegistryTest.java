@@ -0,0 +1,94 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.FailoverRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: FailoverRegistryTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class FailoverRegistryTest {
+
+    private final FailoverRegistry registry = new FailoverRegistry();
+
+    @After
+    public void tearDown() throws Exception {
+        registry.destroy();
+    }
+
+    @Test
+    public void planIsBuiltOncePerName() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<FailoverPlan<Object, Object>>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return registry.getOrCreate("payments", () -> {
+                    builds.incrementAndGet();
+                    return FailoverRegister.instance.buildPolicy().withMaxAttempts(2).build();
+                });
+            }));
+        }
+        start.countDown();
+
+        FailoverPlan<Object, Object> first = futures.get(0).get();
+        for (CompletableFuture<FailoverPlan<Object, Object>> future : futures) {
+            Assert.assertSame(first, future.get());
+        }
+        Assert.assertEquals(1, builds.get());
+        Assert.assertSame(first, registry.get("payments"));
+    }
+
+    @Test
+    public void removedPlanIsRebuilt() {
+        FailoverPlan<Object, Object> first = registry.getOrCreate("orders",
+                () -> FailoverRegister.instance.buildPolicy().build());
+        Assert.assertSame(first, registry.remove("orders"));
+
+        FailoverPlan<Object, Object> second = registry.getOrCreate("orders",
+                () -> FailoverRegister.instance.buildPolicy().build());
+        Assert.assertNotSame(first, second);
+    }
+}
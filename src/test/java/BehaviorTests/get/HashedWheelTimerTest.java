@@ -0,0 +1,126 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.HashedWheelTimer;
+import net.jodah.failsafe.Failsafe;
+import net.jodah.failsafe.RetryPolicy;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: HashedWheelTimerTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer(5, TimeUnit.MILLISECONDS, 8);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void everyWakeupFiresNotBeforeItsDelay() throws Exception {
+        List<ScheduledFuture<Object>> futures = new ArrayList<>();
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long delay = 10 + (i % 100);
+            deadlines.add(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay));
+            futures.add(timer.schedule(System::nanoTime, delay, TimeUnit.MILLISECONDS, executor));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            long firedAt = (Long) futures.get(i).get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(firedAt >= deadlines.get(i));
+        }
+    }
+
+    @Test
+    public void cancelledWakeupNeverFires() throws Exception {
+        AtomicInteger fired = new AtomicInteger();
+        ScheduledFuture<Object> cancelled = timer.schedule(fired::incrementAndGet, 30, TimeUnit.MILLISECONDS, executor);
+        ScheduledFuture<Object> kept = timer.schedule(fired::incrementAndGet, 60, TimeUnit.MILLISECONDS, executor);
+
+        Assert.assertTrue(cancelled.cancel(false));
+        kept.get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(cancelled.isCancelled());
+        Assert.assertEquals(1, fired.get());
+    }
+
+    @Test
+    public void delaysLongerThanOneRotationWaitForTheirRound() throws Exception {
+        long start = System.nanoTime();
+        timer.schedule(() -> null, 100, TimeUnit.MILLISECONDS, executor).get(5, TimeUnit.SECONDS);
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void rejectedTasksStillComplete() throws Exception {
+        ExecutorService closed = Executors.newSingleThreadExecutor();
+        closed.shutdown();
+        try {
+            timer.schedule(() -> "never", 0, TimeUnit.MILLISECONDS, closed);
+            Assert.fail("a task without delay reports the rejection to its caller");
+        } catch (RejectedExecutionException expected) {
+        }
+        Assert.assertEquals("late", timer.schedule(() -> "late", 20, TimeUnit.MILLISECONDS, closed)
+                .get(5, TimeUnit.SECONDS));
+
+        // the pool goes away while the retry waits on the wheel
+        ExecutorService closing = Executors.newSingleThreadExecutor();
+        RetryPolicy<Object> retryPolicy = new RetryPolicy<>().withMaxAttempts(3).withDelay(Duration.ofMillis(20));
+        CompletableFuture<Object> call = Failsafe.with(retryPolicy)
+                .with(timer.scheduler(closing))
+                .getAsync(() -> {
+                    closing.shutdown();
+                    throw new IllegalStateException("down");
+                });
+        try {
+            call.get(5, TimeUnit.SECONDS);
+            Assert.fail("the retry can not run");
+        } catch (ExecutionException expected) {
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.FailoverRegistry;
+import com.creatorchina.core.Hedging;
+import com.creatorchina.core.LatencyHistogram;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: HedgingTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class HedgingTest {
+
+    @Test
+    public void histogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram(Duration.ofMinutes(1));
+        Assert.assertEquals(0, histogram.valueAt(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Assert.assertEquals(1000, histogram.count());
+        long p95 = TimeUnit.NANOSECONDS.toMillis(histogram.valueAt(95));
+        Assert.assertTrue("p95 was " + p95, p95 >= 950 && p95 <= 950 * 107 / 100);
+        long p50 = TimeUnit.NANOSECONDS.toMillis(histogram.valueAt(50));
+        Assert.assertTrue("p50 was " + p50, p50 >= 500 && p50 <= 500 * 107 / 100);
+    }
+
+    @Test
+    public void slowAttemptIsHedgedAndCancelled() {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch cancelled = new CountDownLatch(1);
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(1)
+                .withHedging("hedging-test", Duration.ofMillis(50), 2)
+                .build();
+
+        long start = System.nanoTime();
+        Object result = plan.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                    throw e;
+                }
+                return "slow";
+            }
+            return "fast";
+        });
+        Assert.assertEquals("fast", result);
+        Assert.assertEquals(2, calls.get());
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        Assert.assertTrue(await(cancelled));
+    }
+
+    @Test
+    public void sharedHistogramRecordsEachAttemptOnce() {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(1)
+                .withAdaptiveTimeout("hedging-timeout-test", Duration.ofMillis(50), Duration.ofSeconds(5))
+                .withHedging("hedging-timeout-test", Duration.ofSeconds(5), 1)
+                .build();
+
+        Assert.assertEquals("ok", plan.execute(() -> "ok"));
+        Assert.assertEquals(1, FailoverRegistry.instance.latencyHistogram("hedging-timeout-test").count());
+    }
+
+    @Test
+    public void hedgesInFlightAreCapped() throws Exception {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        Hedging hedging = new Hedging(new LatencyHistogram(Duration.ofMinutes(1)), Duration.ofMillis(20), 1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        try {
+            hedging.race(() -> {
+                calls.incrementAndGet();
+                release.await();
+                return "a";
+            }, executor);
+            hedging.race(() -> {
+                calls.incrementAndGet();
+                release.await();
+                return "b";
+            }, executor);
+            Thread.sleep(300);
+            Assert.assertEquals(1, hedging.getHedgesInFlight());
+            Assert.assertEquals(1, hedging.getHedges());
+            Assert.assertEquals(3, calls.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
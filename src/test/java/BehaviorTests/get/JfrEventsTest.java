@@ -0,0 +1,99 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * @ClassName: JfrEventsTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class JfrEventsTest {
+
+    @Test
+    public void recordsAttemptsFallbacksAndBreakerTransitions() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(2)
+                .withCircuitBreaker("jfr-breaker", BreakerConfig.countBased(2).withMinimumCalls(2))
+                .build();
+        Path file = Files.createTempFile("failover", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.creatorchina.failover.Attempt");
+            recording.enable("com.creatorchina.failover.RetryDelay");
+            recording.enable("com.creatorchina.failover.Fallback");
+            recording.enable("com.creatorchina.failover.BreakerTransition");
+            recording.start();
+            Assert.assertEquals("backup", plan.execute(() -> {
+                throw new IllegalStateException("down");
+            }));
+            recording.stop();
+            recording.dump(file);
+        }
+        // Not recording anymore, the plan is back on its plain chain
+        Assert.assertEquals("backup", plan.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        List<RecordedEvent> attempts = ofType(events, "com.creatorchina.failover.Attempt");
+        Assert.assertEquals(2, attempts.size());
+        Assert.assertEquals("failure", attempts.get(0).getString("outcome"));
+        Assert.assertEquals(IllegalStateException.class.getName(), attempts.get(0).getString("failure"));
+        Assert.assertEquals(1, ofType(events, "com.creatorchina.failover.RetryDelay").size());
+        List<RecordedEvent> fallbacks = ofType(events, "com.creatorchina.failover.Fallback");
+        Assert.assertEquals(1, fallbacks.size());
+        Assert.assertEquals(2, fallbacks.get(0).getInt("attempts"));
+        List<RecordedEvent> transitions = ofType(events, "com.creatorchina.failover.BreakerTransition");
+        Assert.assertEquals(1, transitions.size());
+        Assert.assertEquals("jfr-breaker", transitions.get(0).getString("breaker"));
+        Assert.assertEquals("CLOSED", transitions.get(0).getString("from"));
+        Assert.assertEquals("OPEN", transitions.get(0).getString("to"));
+    }
+
+    private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.LastKnownGood;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: LastKnownGoodTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class LastKnownGoodTest {
+
+    @Test
+    public void cacheIsBoundedAndExpires() throws Exception {
+        LastKnownGood<String, String> cache = new LastKnownGood<>(2, Duration.ofMillis(100));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals("3", cache.get("c"));
+        Thread.sleep(150);
+        Assert.assertNull(cache.get("c"));
+    }
+
+    @Test
+    public void staleValueIsServedAtTheFirstFailure() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.ofLastKnownGood(100, Duration.ofMinutes(1)))
+                .withMaxAttempts(4)
+                .withDelay(Duration.ofMillis(500))
+                .build();
+        Assert.assertEquals("fresh", plan.execute("user:1", () -> "fresh"));
+
+        AtomicBoolean down = new AtomicBoolean(true);
+        AtomicInteger attempts = new AtomicInteger();
+        long start = System.nanoTime();
+        CompletableFuture<Object> stale = plan.getAsync("user:1", () -> {
+            attempts.incrementAndGet();
+            if (down.get()) {
+                throw new IllegalStateException("down");
+            }
+            return "refreshed";
+        });
+        Assert.assertEquals("fresh", stale.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+
+        // A refresh is running, nothing else is executed until it is done
+        Assert.assertEquals("fresh", plan.execute("user:1", () -> "not called"));
+        down.set(false);
+        Thread.sleep(1000);
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals("newer", plan.execute("user:1", () -> "newer"));
+    }
+
+    @Test
+    public void stageCallsServeTheStaleValue() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.ofLastKnownGood(100, Duration.ofMinutes(1)))
+                .withMaxAttempts(3)
+                .withDelay(Duration.ofMillis(500))
+                .build();
+        Assert.assertEquals("fresh", plan.getStageAsync("user:3",
+                () -> CompletableFuture.completedFuture("fresh")).get(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        CompletableFuture<Object> stale = plan.getStageAsync("user:3", () -> {
+            CompletableFuture<Object> down = new CompletableFuture<>();
+            down.completeExceptionally(new IllegalStateException("down"));
+            return down;
+        });
+        Assert.assertEquals("fresh", stale.get(5, TimeUnit.SECONDS));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(400));
+    }
+
+    @Test
+    public void keyedRegisterCallsServeTheStaleValue() throws Exception {
+        FailoverRegister register = FailoverRegister.instance
+                .buildPolicy(MinaFallback.ofLastKnownGood(100, Duration.ofMinutes(1)))
+                .withMaxAttempts(2)
+                .withDelay(Duration.ofMillis(50));
+        Assert.assertEquals("fresh", register.execute("user:2", () -> "fresh"));
+        Assert.assertEquals("fresh", register.execute("user:2", () -> {
+            throw new IllegalStateException("down");
+        }));
+        Assert.assertEquals("fresh", register.assemblyFailover("user:2", () -> {
+            throw new IllegalStateException("down");
+        }, true).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void missingKeyFallsBackToNull() {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.ofLastKnownGood(100, Duration.ofMinutes(1)))
+                .withMaxAttempts(1)
+                .build();
+        Assert.assertNull(plan.execute("user:2", () -> {
+            throw new IllegalStateException("down");
+        }));
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.FailoverRegistry;
+import com.creatorchina.core.ListenerDispatcher;
+import com.creatorchina.core.MinaFallback;
+import net.jodah.failsafe.event.ExecutionAttemptedEvent;
+import net.jodah.failsafe.function.CheckedConsumer;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: ListenerDispatcherTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class ListenerDispatcherTest {
+
+    @Test
+    public void slowListenersDoNotDelayRetries() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch listened = new CountDownLatch(3);
+        CheckedConsumer<Object> slow = event -> {
+            Thread.sleep(200);
+            threads.add(Thread.currentThread().getName());
+            listened.countDown();
+        };
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup")
+                        .withListenerDispatcher("slow-listeners")
+                        .onFailure(slow))
+                .withMaxAttempts(3)
+                .withListenerDispatcher("slow-listeners")
+                .onFailedAttempt(slow)
+                .build();
+
+        long start = System.nanoTime();
+        Assert.assertEquals("backup", plan.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(200));
+
+        Assert.assertTrue(listened.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(threads.get(0).startsWith("failover-listener-slow-listeners"));
+        ListenerDispatcher dispatcher = FailoverRegistry.instance.listenerDispatcher("slow-listeners");
+        Assert.assertEquals(3, dispatcher.getDispatched());
+        Assert.assertEquals(0, dispatcher.getBacklog());
+        Assert.assertTrue(dispatcher.getLagNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void overflowDropsOrRunsOnTheCaller() throws Throwable {
+        for (ListenerDispatcher.Overflow overflow : new ListenerDispatcher.Overflow[]{
+                ListenerDispatcher.Overflow.DROP, ListenerDispatcher.Overflow.CALLER_RUNS}) {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch blocked = new CountDownLatch(1);
+            List<String> threads = new CopyOnWriteArrayList<>();
+            ListenerDispatcher dispatcher = new ListenerDispatcher("overflow", 1, 2, overflow);
+            CheckedConsumer<Object> listener = dispatcher.wrap(event -> {
+                threads.add(Thread.currentThread().getName());
+                if ("block".equals(event)) {
+                    blocked.countDown();
+                    release.await();
+                }
+            });
+            try {
+                listener.accept("block");
+                Assert.assertTrue(blocked.await(5, TimeUnit.SECONDS));
+                for (int i = 0; i < 5; i++) {
+                    listener.accept("event");
+                }
+                Assert.assertEquals(2, dispatcher.getBacklog());
+                if (overflow == ListenerDispatcher.Overflow.DROP) {
+                    Assert.assertEquals(3, dispatcher.getDropped());
+                } else {
+                    Assert.assertEquals(3, dispatcher.getCallerRuns());
+                    Assert.assertEquals(3, threads.stream().filter(Thread.currentThread().getName()::equals).count());
+                }
+            } finally {
+                release.countDown();
+                dispatcher.close();
+            }
+            Assert.assertEquals(3, dispatcher.getDispatched());
+        }
+    }
+
+    @Test
+    public void listenersSeeTheAttemptThatRaisedTheEvent() throws Exception {
+        List<Integer> attempts = new CopyOnWriteArrayList<>();
+        CountDownLatch listened = new CountDownLatch(3);
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(3)
+                .withListenerDispatcher("attempt-listeners")
+                .onFailedAttempt(event -> {
+                    Thread.sleep(50);
+                    attempts.add(((ExecutionAttemptedEvent<?>) event).getAttemptCount());
+                    listened.countDown();
+                })
+                .build();
+        Assert.assertEquals("backup", plan.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+        Assert.assertTrue(listened.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Arrays.asList(1, 2, 3), attempts);
+    }
+
+    @Test
+    public void eventsPublishedWhileClosingAreNotLost() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AtomicInteger listened = new AtomicInteger();
+            ListenerDispatcher dispatcher = new ListenerDispatcher("closing", 1, 1024, ListenerDispatcher.Overflow.BLOCK);
+            CheckedConsumer<Object> listener = dispatcher.wrap(event -> listened.incrementAndGet());
+            Thread publisher = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    try {
+                        listener.accept(i);
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+            publisher.start();
+            dispatcher.close();
+            publisher.join();
+            Assert.assertEquals(500, listened.get());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.PipelineDiagnostics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * @ClassName: PipelineDiagnosticsTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class PipelineDiagnosticsTest {
+
+    @Test
+    public void describesThePlanOnceAtBuild() {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy()
+                .withMaxAttempts(3)
+                .withCircuitBreaker("diagnostics-breaker", BreakerConfig.countBased(10))
+                .build();
+        String description = plan.getDescription();
+        Assert.assertTrue(description, description.startsWith("Fallback -> RetryPolicy[maxAttempts=3"));
+        Assert.assertTrue(description, description.endsWith("SlidingWindowBreaker[diagnostics-breaker]"));
+        Assert.assertSame(description, plan.getDescription());
+    }
+
+    @Test
+    public void rateLimitedLogDropsAndCounts() {
+        Logger logger = Logger.getLogger("diagnostics-test");
+        logger.setUseParentHandlers(false);
+        List<LogRecord> records = new ArrayList<>();
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        PipelineDiagnostics.RateLimitedLog log = PipelineDiagnostics.rateLimited(logger, Level.INFO,
+                "call {0}, {1} suppressed");
+        for (int i = 0; i < 100; i++) {
+            log.log("sync");
+        }
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals(99, log.getSuppressed());
+        Assert.assertArrayEquals(new Object[]{"sync", 0L}, records.get(0).getParameters());
+
+        logger.setLevel(Level.WARNING);
+        log.log("sync");
+        Assert.assertEquals(99, log.getSuppressed());
+    }
+
+    @Test
+    public void rateLimitedLogAllocatesNothingWhenItsLevelIsOff() {
+        Logger logger = Logger.getLogger("diagnostics-off-test");
+        logger.setUseParentHandlers(false);
+        logger.setLevel(Level.INFO);
+        PipelineDiagnostics.RateLimitedLog log = PipelineDiagnostics.rateLimited(logger, Level.FINE,
+                "call {0}, {1} suppressed");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < 100_000; i++) {
+            log.log("sync");
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100_000; i++) {
+            log.log("sync");
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        // one parameter array per call would be megabytes, the remainder is the measurement itself
+        Assert.assertTrue(allocated + " bytes", allocated < 1024);
+        Assert.assertEquals(0, log.getSuppressed());
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.FailoverRegistry;
+import com.creatorchina.core.MinaFallback;
+import com.creatorchina.core.PipelineMetrics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: PipelineMetricsTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class PipelineMetricsTest {
+
+    @Test
+    public void countsAttemptsRetriesAndFallbacks() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(3)
+                .withMetrics("metrics-sync")
+                .build();
+        Assert.assertEquals("ok", plan.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new IllegalStateException("flaky");
+            }
+            return "ok";
+        }));
+        Assert.assertEquals("backup", plan.execute(() -> {
+            throw new IllegalStateException("down");
+        }));
+
+        PipelineMetrics metrics = FailoverRegistry.instance.pipelineMetrics("metrics-sync");
+        Assert.assertEquals(2, metrics.getCalls());
+        Assert.assertEquals(6, metrics.getAttempts());
+        Assert.assertEquals(4, metrics.getRetries());
+        Assert.assertEquals(5, metrics.getFailures());
+        Assert.assertEquals(1, metrics.getFallbacks());
+        Assert.assertEquals(2, metrics.histogram("firstAttempt").count());
+        Assert.assertEquals(4, metrics.histogram("retry").count());
+        Assert.assertEquals(1, metrics.histogram("fallback").count());
+        Assert.assertEquals(2L, ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(FailoverRegistry.objectName("metrics-sync"), "Calls"));
+    }
+
+    @Test
+    public void countsRejectionsAndExecutorTasks() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(1)
+                .withCircuitBreaker("metrics-breaker", BreakerConfig.countBased(2).withMinimumCalls(2))
+                .withMetrics("metrics-async")
+                .build();
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals("backup", plan.getAsync(() -> {
+                throw new IllegalStateException("down");
+            }).get());
+        }
+
+        PipelineMetrics metrics = FailoverRegistry.instance.pipelineMetrics("metrics-async");
+        Assert.assertEquals(4, metrics.getCalls());
+        Assert.assertEquals(4, metrics.getFallbacks());
+        Assert.assertEquals(2, metrics.getRejections());
+        // the executor task is timed once it returns, which is after it completed the future
+        awaitCount(metrics, "runTime", 2);
+        Assert.assertEquals(2, metrics.histogram("runTime").count());
+        Assert.assertEquals(2, metrics.histogram("queueWait").count());
+    }
+
+    @Test
+    public void registerCallsAreRecordedToo() throws Exception {
+        FailoverRegister register = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(2)
+                .withMetrics("metrics-register");
+        Assert.assertEquals("ok", register.execute(() -> "ok"));
+        Assert.assertEquals("backup", register.assemblyFailover(() -> {
+            throw new IllegalStateException("down");
+        }, true).get());
+        Assert.assertEquals("ok", register.execute("key", () -> "ok"));
+
+        PipelineMetrics metrics = FailoverRegistry.instance.pipelineMetrics("metrics-register");
+        Assert.assertEquals(3, metrics.getCalls());
+        Assert.assertEquals(4, metrics.getAttempts());
+        Assert.assertEquals(1, metrics.getRetries());
+        Assert.assertEquals(1, metrics.getFallbacks());
+    }
+
+    private static void awaitCount(PipelineMetrics metrics, String histogram, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (metrics.histogram(histogram).count() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
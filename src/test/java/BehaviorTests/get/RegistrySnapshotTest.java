@@ -0,0 +1,167 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.CircuitBreakerRegistry;
+import com.creatorchina.core.FailoverRegistry;
+import com.creatorchina.core.LatencyHistogram;
+import com.creatorchina.core.RegistrySnapshot;
+import com.creatorchina.core.RetryBudget;
+import com.creatorchina.core.SlidingWindowBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName: RegistrySnapshotTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class RegistrySnapshotTest {
+
+    @Test
+    public void restartRestoresBreakersAndStatistics() throws Exception {
+        Path file = Files.createTempFile("failover", ".snapshot");
+        try {
+            SlidingWindowBreaker<Object> breaker = CircuitBreakerRegistry.instance.windowBreaker("snapshot-breaker",
+                    BreakerConfig.countBased(2).withMinimumCalls(2).withOpenDuration(Duration.ofMinutes(1)));
+            breaker.record(true);
+            breaker.record(true);
+            CircuitBreakerRegistry.instance.windowBreaker("snapshot-closed-breaker");
+            LatencyHistogram histogram = FailoverRegistry.instance.latencyHistogram("snapshot-histogram");
+            for (int i = 1; i <= 100; i++) {
+                histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+            }
+            RetryBudget<Object> budget = FailoverRegistry.instance.retryBudget("snapshot-budget", 20, Duration.ofSeconds(10));
+            budget.recordRequest();
+            budget.tryAcquireRetry();
+            long p99 = histogram.valueAt(99);
+
+            new RegistrySnapshot(file).write();
+            CircuitBreakerRegistry.instance.destroy();
+            FailoverRegistry.instance.destroy();
+            Assert.assertEquals(3, new RegistrySnapshot(file).restore());
+
+            SlidingWindowBreaker<Object> restored = CircuitBreakerRegistry.instance.windowBreaker("snapshot-breaker",
+                    BreakerConfig.countBased(2).withMinimumCalls(2).withOpenDuration(Duration.ofMinutes(1)));
+            Assert.assertTrue(restored.isOpen());
+            Assert.assertFalse(restored.tryAcquirePermission());
+            Assert.assertFalse(CircuitBreakerRegistry.instance.windowBreaker("snapshot-closed-breaker").isOpen());
+            LatencyHistogram restoredHistogram = FailoverRegistry.instance.latencyHistogram("snapshot-histogram");
+            Assert.assertEquals(100, restoredHistogram.count());
+            Assert.assertEquals(p99, restoredHistogram.valueAt(99));
+            RetryBudget<Object> restoredBudget = FailoverRegistry.instance.retryBudget("snapshot-budget", 20, Duration.ofSeconds(10));
+            Assert.assertEquals(1, restoredBudget.getRequests());
+            Assert.assertEquals(1, restoredBudget.getRetries());
+        } finally {
+            CircuitBreakerRegistry.instance.destroy();
+            FailoverRegistry.instance.destroy();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void countsOlderThanTheirWindowAreDropped() throws Exception {
+        Path file = Files.createTempFile("failover", ".snapshot");
+        try {
+            FailoverRegistry.instance.latencyHistogram("snapshot-old-histogram").record(TimeUnit.MILLISECONDS.toNanos(5));
+            FailoverRegistry.instance.retryBudget("snapshot-old-budget", 20, Duration.ofSeconds(10)).recordRequest();
+            new RegistrySnapshot(file).write();
+            FailoverRegistry.instance.destroy();
+
+            // Written 20 seconds ago: past the window of the budget, within the one of the histogram
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ByteBuffer written = ByteBuffer.allocate(8).putLong(0, System.currentTimeMillis() - 20_000);
+                channel.write(written, 6);
+            }
+            // The budget exists already, its dropped counts are not counted as restored
+            RetryBudget<Object> budget = FailoverRegistry.instance.retryBudget("snapshot-old-budget", 20,
+                    Duration.ofSeconds(10));
+            Assert.assertEquals(1, new RegistrySnapshot(file).restore());
+            Assert.assertEquals(1, FailoverRegistry.instance.latencyHistogram("snapshot-old-histogram").count());
+            Assert.assertEquals(0, budget.getRequests());
+        } finally {
+            FailoverRegistry.instance.destroy();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void restoredCountsAgeOutLikeLiveOnes() throws Exception {
+        Path file = Files.createTempFile("failover", ".snapshot");
+        try {
+            FailoverRegistry.instance.retryBudget("snapshot-aging-budget", 20, Duration.ofSeconds(1)).recordRequest();
+            new RegistrySnapshot(file).write();
+            FailoverRegistry.instance.destroy();
+
+            // Written 600 milliseconds ago, the request has less than half of its window left
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                ByteBuffer written = ByteBuffer.allocate(8).putLong(0, System.currentTimeMillis() - 600);
+                channel.write(written, 6);
+            }
+            new RegistrySnapshot(file).restore();
+            RetryBudget<Object> budget = FailoverRegistry.instance.retryBudget("snapshot-aging-budget", 20,
+                    Duration.ofSeconds(1));
+            Assert.assertEquals(1, budget.getRequests());
+            Thread.sleep(600);
+            Assert.assertEquals(0, budget.getRequests());
+        } finally {
+            FailoverRegistry.instance.destroy();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void missingSnapshotRestoresNothing() throws Exception {
+        Path file = Files.createTempFile("failover", ".snapshot");
+        Files.delete(file);
+        RegistrySnapshot snapshot = new RegistrySnapshot(file);
+        Assert.assertEquals(0, snapshot.restore());
+        FailoverRegistry.instance.latencyHistogram("snapshot-periodic");
+        snapshot.start(Duration.ofMillis(20));
+        try {
+            Thread.sleep(100);
+            Assert.assertTrue(Files.exists(file));
+            // Registries destroyed before the snapshot, the last write must not empty the file
+            FailoverRegistry.instance.destroy();
+            snapshot.destroy();
+            Assert.assertEquals(1, new RegistrySnapshot(file).restore());
+        } finally {
+            snapshot.destroy();
+            FailoverRegistry.instance.destroy();
+            Files.deleteIfExists(file);
+        }
+    }
+}
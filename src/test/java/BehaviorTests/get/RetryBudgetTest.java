@@ -0,0 +1,78 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import com.creatorchina.core.RetryBudget;
+import com.creatorchina.preview.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: RetryBudgetTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class RetryBudgetTest {
+
+    @Test
+    public void retriesAreCappedByPercentOfRequests() {
+        RetryBudget budget = new RetryBudget(20, Duration.ofMinutes(1));
+        for (int i = 0; i < 100; i++) {
+            budget.recordRequest();
+        }
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(budget.tryAcquireRetry());
+        }
+        Assert.assertFalse(budget.tryAcquireRetry());
+        Assert.assertEquals(100, budget.getRequests());
+        Assert.assertEquals(20, budget.getRetries());
+    }
+
+    @Test
+    public void exhaustedBudgetGoesStraightToFallback() {
+        AtomicInteger attempts = new AtomicInteger();
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(4)
+                .withRetryBudget("retry-budget-test", 0, Duration.ofMinutes(1))
+                .build();
+
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals("backup", plan.execute(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("down");
+            }));
+        }
+        Assert.assertEquals(20 + Constants.RETRY_BUDGET_MIN_RETRIES, attempts.get());
+    }
+}
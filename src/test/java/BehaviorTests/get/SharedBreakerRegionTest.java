@@ -0,0 +1,163 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.Bulkhead;
+import com.creatorchina.core.CircuitBreakerRegistry;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import com.creatorchina.core.SharedBreakerRegion;
+import com.creatorchina.core.SharedWindowBreaker;
+import com.creatorchina.core.SlidingWindowBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: SharedBreakerRegionTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class SharedBreakerRegionTest {
+
+    @Test
+    public void mappingsOfOneFileShareTheBreaker() throws Exception {
+        Path file = Files.createTempFile("breakers", ".region");
+        try {
+            // Two mappings of the same file behave like two processes on the host
+            SharedBreakerRegion first = SharedBreakerRegion.open(file, 16);
+            SharedBreakerRegion second = SharedBreakerRegion.open(file, 64);
+            Assert.assertEquals(16, second.getSlots());
+            BreakerConfig config = BreakerConfig.timeBased(10)
+                    .withMinimumCalls(4)
+                    .withOpenDuration(Duration.ofMillis(100))
+                    .withHalfOpenCalls(1);
+            SharedWindowBreaker<Object> mine = first.breaker("downstream", config);
+            SharedWindowBreaker<Object> theirs = second.breaker("downstream", config);
+            SharedWindowBreaker<Object> other = second.breaker("other", config);
+
+            mine.record(true, 0);
+            theirs.record(true, 0);
+            mine.record(false, 0);
+            Assert.assertEquals(3, theirs.getCalls());
+            theirs.record(true, 0);
+            Assert.assertTrue(mine.isOpen());
+            Assert.assertFalse(mine.tryAcquirePermission());
+            Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, other.getState());
+
+            Thread.sleep(150);
+            Assert.assertTrue(theirs.tryAcquirePermission());
+            Assert.assertFalse(mine.tryAcquirePermission());
+            theirs.record(false, 0);
+            Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, mine.getState());
+            Assert.assertEquals(0, mine.getCalls());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void registryHandsOutSharedBreakers() throws Exception {
+        Path file = Files.createTempFile("registry", ".region");
+        CircuitBreakerRegistry.instance.useSharedMemory(file, 0);
+        try {
+            AtomicInteger calls = new AtomicInteger();
+            FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                    .buildPolicy(MinaFallback.of(() -> "backup"))
+                    .withMaxAttempts(1)
+                    .withCircuitBreaker("shared-breaker-test", BreakerConfig.timeBased(10).withMinimumCalls(3))
+                    .build();
+            for (int i = 0; i < 5; i++) {
+                Assert.assertEquals("backup", plan.execute(() -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("down");
+                }));
+            }
+            Assert.assertEquals(3, calls.get());
+            Assert.assertTrue(SharedBreakerRegion.open(file, 1).breaker("shared-breaker-test",
+                    BreakerConfig.timeBased(10)).isOpen());
+        } finally {
+            CircuitBreakerRegistry.instance.destroy();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void trialCallRejectedByBulkheadGivesItsPermitBack() throws Exception {
+        Path file = Files.createTempFile("half-open", ".region");
+        CircuitBreakerRegistry.instance.useSharedMemory(file, 0);
+        try {
+            BreakerConfig config = BreakerConfig.timeBased(10)
+                    .withMinimumCalls(2)
+                    .withOpenDuration(Duration.ofMillis(100))
+                    .withHalfOpenCalls(2);
+            FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                    .buildPolicy(MinaFallback.of(() -> "backup"))
+                    .withMaxAttempts(1)
+                    .withCircuitBreaker("shared-half-open-test", config)
+                    .withBulkhead("shared-half-open-test", Bulkhead.Isolation.SEMAPHORE, 1, 0)
+                    .build();
+            SharedWindowBreaker<Object> breaker = SharedBreakerRegion.open(file, 1).breaker("shared-half-open-test", config);
+            for (int i = 0; i < 2; i++) {
+                Assert.assertEquals("backup", plan.execute(() -> {
+                    throw new IllegalStateException("down");
+                }));
+            }
+            Assert.assertEquals(SlidingWindowBreaker.State.OPEN, breaker.getState());
+            Thread.sleep(150);
+
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> plan.execute(() -> {
+                entered.countDown();
+                release.await();
+                return "ok";
+            }));
+            Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+            // The second trial call is rejected by the full bulkhead and never reaches the dependency
+            Assert.assertEquals("backup", plan.execute(() -> "not called"));
+            release.countDown();
+            Assert.assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+            Assert.assertEquals(SlidingWindowBreaker.State.HALF_OPEN, breaker.getState());
+
+            Assert.assertEquals("ok", plan.execute(() -> "ok"));
+            Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, breaker.getState());
+        } finally {
+            CircuitBreakerRegistry.instance.destroy();
+            Files.deleteIfExists(file);
+        }
+    }
+}
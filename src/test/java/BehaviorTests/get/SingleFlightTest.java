@@ -0,0 +1,143 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.FailoverCreator;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: SingleFlightTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallsOfOneKeyRunOnce() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance.buildPolicy().build();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                results.add(callers.submit(() -> {
+                    start.await();
+                    return plan.execute("user:42", () -> {
+                        calls.incrementAndGet();
+                        Thread.sleep(300);
+                        return "jack";
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Object> result : results) {
+                Assert.assertEquals("jack", result.get(5, TimeUnit.SECONDS));
+            }
+            Assert.assertEquals(1, calls.get());
+            Assert.assertEquals("again", plan.execute("user:42", () -> "again"));
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void registerSyncCallersGetCompletedFutures() throws Exception {
+        FailoverRegister register = FailoverRegister.instance.buildPolicy();
+        CountDownLatch running = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<CompletableFuture<Object>> first = callers.submit(() -> register.assemblyFailover("user:7", () -> {
+                running.countDown();
+                Thread.sleep(300);
+                return "jack";
+            }, false));
+            Assert.assertTrue(running.await(5, TimeUnit.SECONDS));
+            Future<CompletableFuture<Object>> waiter = callers.submit(() -> register.assemblyFailover("user:7",
+                    () -> "never", false));
+            for (Future<CompletableFuture<Object>> result : new Future[]{first, waiter}) {
+                CompletableFuture<Object> future = result.get(5, TimeUnit.SECONDS);
+                Assert.assertTrue(future.isDone());
+                Assert.assertEquals("jack", future.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitersShareTheFallback() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(2)
+                .build();
+        AtomicInteger attempts = new AtomicInteger();
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(plan.getAsync("user:7", () -> {
+                attempts.incrementAndGet();
+                Thread.sleep(100);
+                throw new IllegalStateException("down");
+            }));
+        }
+        for (CompletableFuture<Object> future : futures) {
+            Assert.assertEquals("backup", future.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void creatorCoalescesOnTheDefaultPipeline() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<Object> first = FailoverCreator.coalescedFailover("creator:1", () -> {
+            calls.incrementAndGet();
+            Thread.sleep(200);
+            return "ok";
+        }, true);
+        CompletableFuture<Object> second = FailoverCreator.coalescedFailover("creator:1", () -> {
+            calls.incrementAndGet();
+            return "other";
+        }, true);
+        Assert.assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals("ok", second.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,222 @@
+/**
+ * The MIT License
+ *
+ * Copyright for portions of failover-safe are held by creatorchina Inc (c) 2020.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining
+ * a copy of this software and associated documentation files (the
+ * "Software"), to deal in the Software without restriction, including
+ * without limitation the rights to use, copy, modify, merge, publish,
+ * distribute, sublicense, and/or sell copies of the Software, and to
+ * permit persons to whom the Software is furnished to do so, subject to
+ * the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE
+ * LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION
+ * OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package BehaviorTests.get;
+
+import com.creatorchina.core.BreakerConfig;
+import com.creatorchina.core.Bulkhead;
+import com.creatorchina.core.CircuitBreakerRegistry;
+import com.creatorchina.core.FailoverPlan;
+import com.creatorchina.core.FailoverRegister;
+import com.creatorchina.core.MinaFallback;
+import com.creatorchina.core.SlidingWindowBreaker;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName: SlidingWindowBreakerTest
+ * @Description: $
+ * @Author: jack.liang
+ * @Date: 2026/10/18
+ **/
+public class SlidingWindowBreakerTest {
+
+    @Test
+    public void countBasedWindowOpensAndCloses() throws Exception {
+        SlidingWindowBreaker breaker = new SlidingWindowBreaker("count-window", BreakerConfig.countBased(10)
+                .withMinimumCalls(5)
+                .withFailureRateThreshold(50)
+                .withOpenDuration(Duration.ofMillis(100))
+                .withHalfOpenCalls(2));
+        for (int i = 0; i < 5; i++) {
+            breaker.record(false);
+        }
+        for (int i = 0; i < 4; i++) {
+            breaker.record(true);
+        }
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, breaker.getState());
+        breaker.record(true);
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, breaker.getState());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+
+        Thread.sleep(150);
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertTrue(breaker.tryAcquirePermission());
+        Assert.assertFalse(breaker.tryAcquirePermission());
+        Assert.assertEquals(SlidingWindowBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.record(false);
+        breaker.record(false);
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, breaker.getState());
+        Assert.assertEquals(0, breaker.getCalls());
+    }
+
+    @Test
+    public void countBasedWindowForgetsOldCalls() {
+        SlidingWindowBreaker breaker = new SlidingWindowBreaker("count-window-slide", BreakerConfig.countBased(4)
+                .withMinimumCalls(4)
+                .withFailureRateThreshold(75));
+        breaker.record(true);
+        breaker.record(true);
+        for (int i = 0; i < 4; i++) {
+            breaker.record(false);
+        }
+        Assert.assertEquals(4, breaker.getCalls());
+        Assert.assertEquals(0, breaker.getFailures());
+    }
+
+    @Test
+    public void countWindowSmallerThanTheDefaultMinimumStillOpens() {
+        SlidingWindowBreaker breaker = new SlidingWindowBreaker("count-window-small", BreakerConfig.countBased(10));
+        for (int i = 0; i < 10; i++) {
+            breaker.record(true);
+        }
+        Assert.assertTrue(breaker.isOpen());
+        try {
+            BreakerConfig.countBased(10).withMinimumCalls(11);
+            Assert.fail("a window of 10 calls never holds 11");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void timeBasedWindowOpens() {
+        SlidingWindowBreaker breaker = new SlidingWindowBreaker("time-window", BreakerConfig.timeBased(10)
+                .withMinimumCalls(3));
+        breaker.record(true);
+        breaker.record(false);
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, breaker.getState());
+        breaker.record(true);
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, breaker.getState());
+        Assert.assertTrue(breaker.isOpen());
+    }
+
+    @Test
+    public void slowCallsOpenBreaker() {
+        SlidingWindowBreaker breaker = new SlidingWindowBreaker("slow-window", BreakerConfig.countBased(10)
+                .withMinimumCalls(4)
+                .withSlowCallThreshold(Duration.ofMillis(100))
+                .withSlowCallRateThreshold(50));
+        long slow = Duration.ofMillis(150).toNanos();
+        breaker.record(false, 0);
+        breaker.record(false, 0);
+        breaker.record(false, slow);
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, breaker.getState());
+        breaker.record(false, slow);
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, breaker.getState());
+        Assert.assertEquals(0, breaker.getFailures());
+        Assert.assertEquals(50f, breaker.getSlowCallRate(), 0.001);
+    }
+
+    @Test
+    public void slowCallsThroughPlanOpenBreaker() {
+        AtomicInteger calls = new AtomicInteger();
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(1)
+                .withCircuitBreaker("slow-window-breaker-test", BreakerConfig.timeBased(10)
+                        .withMinimumCalls(2)
+                        .withSlowCallThreshold(Duration.ofMillis(20))
+                        .withSlowCallRateThreshold(100))
+                .build();
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("slow", plan.execute(() -> {
+                calls.incrementAndGet();
+                Thread.sleep(30);
+                return "slow";
+            }));
+        }
+        Assert.assertTrue(CircuitBreakerRegistry.instance.windowBreaker("slow-window-breaker-test").isOpen());
+        Assert.assertEquals("backup", plan.execute(() -> {
+            calls.incrementAndGet();
+            return "fast";
+        }));
+        Assert.assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void openBreakerGoesStraightToFallback() {
+        AtomicInteger calls = new AtomicInteger();
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(1)
+                .withCircuitBreaker("sliding-window-breaker-test", BreakerConfig.countBased(4).withMinimumCalls(4))
+                .build();
+        for (int i = 0; i < 6; i++) {
+            Assert.assertEquals("backup", plan.execute(() -> {
+                calls.incrementAndGet();
+                throw new IllegalStateException("down");
+            }));
+        }
+        Assert.assertEquals(4, calls.get());
+        Assert.assertSame(CircuitBreakerRegistry.instance.windowBreaker("sliding-window-breaker-test"),
+                CircuitBreakerRegistry.instance.windowBreaker("sliding-window-breaker-test", BreakerConfig.timeBased(1)));
+        Assert.assertSame(CircuitBreakerRegistry.instance.getOrCreate("failsafe-breaker-test"),
+                CircuitBreakerRegistry.instance.getOrCreate("failsafe-breaker-test"));
+    }
+
+    @Test
+    public void trialCallRejectedByBulkheadGivesItsPermitBack() throws Exception {
+        FailoverPlan<Object, Object> plan = FailoverRegister.instance
+                .buildPolicy(MinaFallback.of(() -> "backup"))
+                .withMaxAttempts(1)
+                .withCircuitBreaker("half-open-bulkhead-test", BreakerConfig.countBased(2)
+                        .withMinimumCalls(2)
+                        .withOpenDuration(Duration.ofMillis(100))
+                        .withHalfOpenCalls(2))
+                .withBulkhead("half-open-bulkhead-test", Bulkhead.Isolation.SEMAPHORE, 1, 0)
+                .build();
+        SlidingWindowBreaker breaker = CircuitBreakerRegistry.instance.windowBreaker("half-open-bulkhead-test");
+        for (int i = 0; i < 2; i++) {
+            Assert.assertEquals("backup", plan.execute(() -> {
+                throw new IllegalStateException("down");
+            }));
+        }
+        Assert.assertEquals(SlidingWindowBreaker.State.OPEN, breaker.getState());
+        Thread.sleep(150);
+
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> plan.execute(() -> {
+            entered.countDown();
+            release.await();
+            return "ok";
+        }));
+        Assert.assertTrue(entered.await(5, TimeUnit.SECONDS));
+        // The second trial call is rejected by the full bulkhead and never reaches the dependency
+        Assert.assertEquals("backup", plan.execute(() -> "not called"));
+        release.countDown();
+        Assert.assertEquals("ok", first.get(5, TimeUnit.SECONDS));
+        Assert.assertEquals(SlidingWindowBreaker.State.HALF_OPEN, breaker.getState());
+
+        Assert.assertEquals("ok", plan.execute(() -> "ok"));
+        Assert.assertEquals(SlidingWindowBreaker.State.CLOSED, breaker.getState());
+    }
+}